@@ -0,0 +1,78 @@
+package libbasicui;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import utils.FileUtilities;
+
+/**
+ * Compares the throughput of the previous 1 KB copy loop with
+ * {@link FileUtilities#writeFile(java.io.InputStream, java.io.File, boolean)}
+ * and {@link FileUtilities#copyFile(java.io.File, java.io.File)}, the first
+ * argument is the size of the file in MB (256 by default)
+ * 
+ * @author cristopher
+ */
+public class CopyBenchmark {
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        
+        File source = File.createTempFile("copybenchmark", ".bin");
+        File target = File.createTempFile("copybenchmark", ".copy");
+        source.deleteOnExit();
+        target.deleteOnExit();
+        
+        byte [] data = new byte[1024 * 1024];
+        new Random(26).nextBytes(data);
+        try (FileOutputStream outputStream = new FileOutputStream(source)) {
+            for (int i = 0; i < size; i++)
+                outputStream.write(data);
+        }
+        
+        System.out.println("[INFO] Copying " + size + " MB");
+        
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            legacyWriteFile(new FileInputStream(source), target);
+            report("1 KB loop", size, start);
+            
+            start = System.nanoTime();
+            FileUtilities.writeFile(new BufferedInputStream(new FileInputStream(source)), target, true);
+            report("writeFile (stream)", size, start);
+            
+            start = System.nanoTime();
+            FileUtilities.writeFile(new FileInputStream(source), target, true);
+            report("writeFile (FileInputStream)", size, start);
+            
+            start = System.nanoTime();
+            FileUtilities.copyFile(source, target);
+            report("copyFile", size, start);
+            
+            start = System.nanoTime();
+            FileUtilities.copyFile(source, target, true, null);
+            report("copyFile (atomic)", size, start);
+        }
+    }
+    
+    private static void report(String name, int size, long start) {
+        double seconds = (System.nanoTime() - start) / 1000000000.0;
+        
+        System.out.println("[INFO] " + name + ": " + Math.round(size / seconds) + " MB/s");
+    }
+    
+    /**
+     * The copy loop used by writeFile before it had pooled buffers
+     */
+    private static void legacyWriteFile(InputStream inputStream, File outputFile) throws IOException {
+        try (InputStream in = inputStream; FileOutputStream fileOutputStream = new FileOutputStream(outputFile)) {
+            byte [] dataBuffer = new byte[1024];
+            int bytesRead;
+            while ((bytesRead = in.read(dataBuffer, 0, 1024)) != -1)
+                fileOutputStream.write(dataBuffer, 0, bytesRead);
+        }
+    }
+}
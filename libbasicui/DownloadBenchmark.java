@@ -0,0 +1,158 @@
+package libbasicui;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import utils.FileDownload;
+import utils.FileUtilities;
+
+/**
+ * Runs {@link FileDownload} against a local HTTP server, no network is
+ * needed<br>
+ * The server supports ranges and can stall connections, the download is
+ * checked after every scenario. The first argument is the
+ * size of the file in MB (64 by default).
+ * 
+ * @author cristopher
+ */
+public class DownloadBenchmark {
+    private static byte [] data;
+    
+    /**
+     * If true, the next connection stops sending data halfway without
+     * closing
+     */
+    private static volatile boolean stall = false;
+    
+    private static final AtomicInteger rangeRequests = new AtomicInteger();
+    
+    public static void main(String[] args) throws IOException, NoSuchAlgorithmException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        
+        data = new byte[size * 1024 * 1024];
+        new Random(26).nextBytes(data);
+        
+        StringBuilder checksum = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(data))
+            checksum.append(String.format("%02x", b));
+        
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/file", DownloadBenchmark::serve);
+        server.setExecutor(Executors.newCachedThreadPool((r) -> {
+            Thread t = new Thread(r, "DownloadBenchmark-server");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.start();
+        
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/file";
+        File output = File.createTempFile("downloadbenchmark", ".bin");
+        
+        try {
+            long start = System.nanoTime();
+            FileDownload download = new FileDownload(url, output);
+            download.setChecksum("SHA-256", checksum.toString());
+            report("Complete download", download.start(), output, start);
+            
+            stall = true;
+            start = System.nanoTime();
+            download = new FileDownload(url, output);
+            download.setTimeouts(1000, 1000);
+            download.setChecksum("SHA-256", checksum.toString());
+            report("Stalled connection", download.start(), output, start);
+            
+            FileDownload cancelled = new FileDownload(url, output);
+            cancelled.setProgressListener((received, total) -> {
+                if (received > total / 2)
+                    cancelled.cancel();
+            });
+            boolean stopped = !cancelled.start();
+            System.out.println("[INFO] Cancelled at " + cancelled.getDownloadedBytes() + " bytes: " + stopped);
+            
+            start = System.nanoTime();
+            download = new FileDownload(url, output);
+            download.setChecksum("SHA-256", checksum.toString());
+            report("Resumed after cancel", download.start(), output, start);
+            
+            download = new FileDownload(url, output);
+            download.setChecksum("SHA-256", "00");
+            System.out.println("[INFO] Wrong checksum rejected: " + !download.start());
+            
+            start = System.nanoTime();
+            try (InputStream inputStream = new URL(url).openStream()) {
+                FileUtilities.writeFile(inputStream, output, false);
+            }
+            report("URL.openStream", true, output, start);
+            
+            System.out.println("[INFO] Range requests: " + rangeRequests.get());
+        } finally {
+            server.stop(0);
+            output.delete();
+        }
+    }
+    
+    private static void report(String name, boolean downloaded, File output, long start) throws IOException {
+        long time = (System.nanoTime() - start) / 1000000;
+        boolean matches = downloaded && Arrays.equals(data, Files.readAllBytes(output.toPath()));
+        
+        System.out.println("[INFO] " + name + ": " + (matches ? "OK" : "FAILED") + ", " + time + " ms, "
+                + Math.round(data.length / 1048576.0 / Math.max(time, 1) * 1000) + " MB/s");
+    }
+    
+    private static void serve(HttpExchange exchange) throws IOException {
+        int offset = 0;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        
+        exchange.getResponseHeaders().add("ETag", "\"benchmark\"");
+        exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        
+        if (range != null && (ifRange == null || ifRange.equals("\"benchmark\""))) {
+            offset = Integer.parseInt(range.substring(6, range.indexOf('-')));
+            rangeRequests.incrementAndGet();
+            
+            if (offset >= data.length) {
+                exchange.getResponseHeaders().add("Content-Range", "bytes */" + data.length);
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+            
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + offset + "-" + (data.length - 1) + "/" + data.length);
+            exchange.sendResponseHeaders(206, data.length - offset);
+        } else
+            exchange.sendResponseHeaders(200, data.length);
+        
+        boolean stop = stall;
+        stall = false;
+        
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            if (stop) {
+                int end = offset + (data.length - offset) / 2;
+                outputStream.write(data, offset, end - offset);
+                outputStream.flush();
+                
+                Thread.sleep(3000);
+                return;
+            }
+            
+            outputStream.write(data, offset, data.length - offset);
+        } catch (IOException | InterruptedException ex) {
+            // The client closed the connection
+        } finally {
+            exchange.close();
+        }
+    }
+}
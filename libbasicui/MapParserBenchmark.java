@@ -0,0 +1,66 @@
+package libbasicui;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import utils.LibUtilities;
+import utils.MapParser;
+
+/**
+ * Measures {@link MapParser#parse(java.lang.String)} and
+ * {@link LibUtilities#compressStringHashMap(java.lang.String)} with about
+ * 1 MB of nested maps
+ * 
+ * @author cristopher
+ */
+public class MapParserBenchmark {
+    private static final Random random = new Random(26);
+    
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1024 * 1024;
+        
+        StringBuilder data = new StringBuilder("{");
+        for (int i = 0; data.length() < size; i++) {
+            if (i > 0)
+                data.append(", ");
+            
+            data.append("PROPERTY").append(i).append('=');
+            appendValue(data, 0);
+        }
+        data.append('}');
+        
+        String s = data.toString();
+        System.out.println("[INFO] Input: " + s.length() + " characters");
+        
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            LinkedHashMap<String, Object> map = MapParser.parse(s);
+            long parseTime = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            Object [] compressed = LibUtilities.compressStringHashMap(s);
+            long compressTime = System.nanoTime() - start;
+            
+            System.out.println("[INFO] Run " + run + ": MapParser.parse " + (parseTime / 1000000.0) + " ms (" + map.size() + " entries), "
+                    + "compressStringHashMap " + (compressTime / 1000000.0) + " ms (" + ((List<?>) compressed[1]).size() + " maps)");
+        }
+    }
+    
+    private static void appendValue(StringBuilder data, int depth) {
+        if (depth < 4 && random.nextInt(3) == 0) {
+            data.append('{');
+            
+            int entries = 1 + random.nextInt(4);
+            for (int i = 0; i < entries; i++) {
+                if (i > 0)
+                    data.append(", ");
+                
+                data.append("KEY").append(depth).append('_').append(i).append('=');
+                appendValue(data, depth + 1);
+            }
+            
+            data.append('}');
+        } else
+            data.append(random.nextBoolean() ? "9.9" : "true");
+    }
+}
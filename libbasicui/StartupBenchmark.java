@@ -0,0 +1,29 @@
+package libbasicui;
+
+import java.io.File;
+import java.util.Arrays;
+import ui.UIProperties;
+import utils.FileUtilities;
+import utils.LibUtilities;
+
+/**
+ * Measures how long it takes to use the non-UI utilities and the UI
+ * properties for the first time, it should be run in a new JVM
+ * 
+ * @author cristopher
+ */
+public class StartupBenchmark {
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        int [] color = LibUtilities.getColorData("255-255-255");
+        File file = FileUtilities.joinPath(LibUtilities.USER_HOME, "libBasicUI");
+        long utilitiesTime = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        UIProperties.getTheme();
+        long uiTime = System.nanoTime() - start;
+        
+        System.out.println("[INFO] LibUtilities and FileUtilities first use: " + (utilitiesTime / 1000000.0) + " ms (" + Arrays.toString(color) + ", " + file.getName() + ")");
+        System.out.println("[INFO] UIProperties first use: " + (uiTime / 1000000.0) + " ms");
+    }
+}
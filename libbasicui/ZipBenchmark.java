@@ -0,0 +1,120 @@
+package libbasicui;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import utils.FileUtilities;
+
+/**
+ * Extracts an archive with many small entries and compresses the result
+ * again, the first argument is the number of entries (30000 by default)<br>
+ * The serial extraction used before {@link FileUtilities#ZIP_THREADS} and a
+ * single ZipOutputStream are measured too.
+ * 
+ * @author cristopher
+ */
+public class ZipBenchmark {
+    public static void main(String[] args) throws IOException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 30000;
+        
+        Path directory = Files.createTempDirectory("zipbenchmark");
+        File archive = directory.resolve("archive.zip").toFile();
+        
+        Random random = new Random(26);
+        try (ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (int i = 0; i < entries; i++) {
+                outputStream.putNextEntry(new ZipEntry("directory" + (i % 100) + "/file" + i + ".txt"));
+                
+                byte [] data = new byte[random.nextInt(8192)];
+                for (int j = 0; j < data.length; j++)
+                    data[j] = (byte) ('a' + random.nextInt(4));
+                
+                outputStream.write(data);
+                outputStream.closeEntry();
+            }
+        }
+        
+        System.out.println("[INFO] " + entries + " entries, " + (archive.length() / 1024) + " KB");
+        
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            legacyExtractAllZippedFiles(archive, directory.resolve("serial" + run).toFile());
+            report("Serial extraction", start);
+            
+            AtomicInteger extracted = new AtomicInteger();
+            start = System.nanoTime();
+            FileUtilities.extractAllZippedFiles(archive, directory.resolve("parallel" + run).toFile(), null,
+                    (name, processed, total) -> extracted.incrementAndGet());
+            report("extractAllZippedFiles (" + FileUtilities.ZIP_THREADS + " threads, " + extracted.get() + " entries)", start);
+        }
+        
+        Path extracted = directory.resolve("parallel0");
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            serialZipDirectory(extracted, directory.resolve("serial" + run + ".zip"));
+            report("ZipOutputStream", start);
+            
+            start = System.nanoTime();
+            FileUtilities.zipDirectory(extracted.toFile(), directory.resolve("parallel" + run + ".zip").toFile());
+            report("zipDirectory (" + FileUtilities.ZIP_THREADS + " threads)", start);
+        }
+        
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach((p) -> p.toFile().delete());
+        }
+    }
+    
+    private static void report(String name, long start) {
+        System.out.println("[INFO] " + name + ": " + ((System.nanoTime() - start) / 1000000) + " ms");
+    }
+    
+    /**
+     * Compresses a directory with a single ZipOutputStream
+     */
+    private static void serialZipDirectory(Path directory, Path outputFile) throws IOException {
+        try (ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(outputFile.toFile()));
+                Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                if (!Files.isRegularFile(path))
+                    continue;
+                
+                outputStream.putNextEntry(new ZipEntry(directory.relativize(path).toString().replace(File.separatorChar, '/')));
+                Files.copy(path, outputStream);
+                outputStream.closeEntry();
+            }
+        }
+    }
+    
+    /**
+     * The serial loop used by extractAllZippedFiles before it was parallel
+     */
+    private static void legacyExtractAllZippedFiles(File inputFile, File outputPath) throws IOException {
+        try (ZipFile zip = new ZipFile(inputFile)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry e = entries.nextElement();
+                
+                File file = FileUtilities.joinPath(outputPath, e.getName());
+                file.getParentFile().mkdirs();
+                
+                try (InputStream inputStream = zip.getInputStream(e); FileOutputStream outputStream = new FileOutputStream(file)) {
+                    byte [] dataBuffer = new byte[1024];
+                    int bytesRead;
+                    while ((bytesRead = inputStream.read(dataBuffer, 0, 1024)) != -1)
+                        outputStream.write(dataBuffer, 0, bytesRead);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ui;
+
+/**
+ * Interface for components animated by {@link AnimationClock}
+ * 
+ * @author cristopher
+ */
+public interface Animated {
+    /**
+     * Advances the animation to the given time, this is called once per frame
+     * on the Event Dispatch Thread while the animation is registered
+     * 
+     * @param frameTime the frame timestamp in nanoseconds, see {@link System#nanoTime()}
+     * @return true if the animation should keep running, false to unregister it
+     * @see AnimationClock#start(ui.Animated)
+     */
+    public boolean nextFrame(long frameTime);
+}
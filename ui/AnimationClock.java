@@ -0,0 +1,207 @@
+package ui;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
+import java.util.ArrayList;
+import javax.swing.Timer;
+import utils.LibUtilities;
+
+/**
+ * Global clock that drives every animated component<br>
+ * A single timer ticks at the display refresh rate while there is at least
+ * one running animation, once all animations end the timer is stopped.<br>
+ * On Windows the default timer resolution is about 15 ms, which makes the
+ * frame rate uneven, so while the clock is ticking a pacing thread keeps a
+ * higher timer resolution. The pacing thread ends together with the clock.
+ * 
+ * @author cristopher
+ * @see Animated
+ */
+public class AnimationClock {
+    /**
+     * Frame rate used if the display refresh rate can't be retrieved
+     */
+    public static final int DEFAULT_FRAME_RATE = 60;
+    
+    private static final ArrayList<Animated> animations = new ArrayList<>();
+    
+    private static int frameRate = getDisplayRefreshRate();
+    
+    private static final Timer clock = new Timer(1000 / frameRate, (Action) -> {
+        tick();
+    });
+    
+    static {
+        clock.setCoalesce(true);
+    }
+    
+    /**
+     * If true, a pacing thread raises the system timer resolution while 
+     * the clock is ticking
+     */
+    private static boolean highResolutionPacing = !LibUtilities.IS_UNIX_LIKE;
+    
+    private static Thread pacer = null;
+    
+    private AnimationClock() { }
+    
+    private static int getDisplayRefreshRate() {
+        try {
+            if (GraphicsEnvironment.isHeadless())
+                return DEFAULT_FRAME_RATE;
+            
+            DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode();
+            int refreshRate = mode.getRefreshRate();
+            
+            return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_FRAME_RATE : refreshRate;
+        } catch (HeadlessException | NullPointerException ex) {
+            return DEFAULT_FRAME_RATE;
+        }
+    }
+    
+    private static void startPacer() {
+        if (!highResolutionPacing || pacer != null)
+            return;
+        
+        // Short sleeps make the JVM request a 1 ms timer resolution on 
+        // Windows, the resolution is restored once the thread ends
+        pacer = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted())
+                try { Thread.sleep(1); } catch (InterruptedException ex) { break; }
+        }, "AnimationClock-pacer");
+        
+        pacer.setDaemon(true);
+        pacer.start();
+    }
+    
+    private static void stopPacer() {
+        if (pacer == null)
+            return;
+        
+        pacer.interrupt();
+        pacer = null;
+    }
+    
+    private static void tick() {
+        Animated [] frame;
+        
+        synchronized (animations) {
+            frame = animations.toArray(new Animated[animations.size()]);
+        }
+        
+        long frameTime = System.nanoTime();
+        
+        for (Animated a : frame)
+            if (!a.nextFrame(frameTime))
+                stop(a);
+    }
+    
+    /**
+     * Registers an animation, the clock starts if it was idle
+     * 
+     * @param animation the animation
+     */
+    public static void start(Animated animation) {
+        synchronized (animations) {
+            if (!animations.contains(animation))
+                animations.add(animation);
+            
+            if (!clock.isRunning()) {
+                startPacer();
+                clock.start();
+            }
+        }
+    }
+    
+    /**
+     * Unregisters an animation, the clock becomes idle if there are no more
+     * animations running
+     * 
+     * @param animation the animation
+     */
+    public static void stop(Animated animation) {
+        synchronized (animations) {
+            animations.remove(animation);
+            
+            if (animations.isEmpty()) {
+                clock.stop();
+                stopPacer();
+            }
+        }
+    }
+    
+    /**
+     * @param animation the animation
+     * @return true if the animation is registered
+     */
+    public static boolean isRunning(Animated animation) {
+        synchronized (animations) {
+            return animations.contains(animation);
+        }
+    }
+    
+    /**
+     * @return true if the clock is ticking
+     */
+    public static boolean isActive() {
+        return clock.isRunning();
+    }
+    
+    /**
+     * @return the amount of registered animations
+     */
+    public static int getAnimationCount() {
+        synchronized (animations) {
+            return animations.size();
+        }
+    }
+    
+    /**
+     * @return true if the system timer resolution is raised while the clock
+     * is ticking
+     */
+    public static boolean isHighResolutionPacing() {
+        return highResolutionPacing;
+    }
+    
+    /**
+     * Turns on or off the high resolution pacing, by default this is only
+     * enabled on Windows
+     * 
+     * @param highResolutionPacing if true, a pacing thread will run while 
+     * there are animations running
+     */
+    public static void setHighResolutionPacing(boolean highResolutionPacing) {
+        synchronized (animations) {
+            AnimationClock.highResolutionPacing = highResolutionPacing;
+            
+            if (!highResolutionPacing)
+                stopPacer();
+            else if (clock.isRunning())
+                startPacer();
+        }
+    }
+    
+    /**
+     * @return the frames per second of the clock
+     */
+    public static int getFrameRate() {
+        return frameRate;
+    }
+    
+    /**
+     * Changes the frames per second, by default this is the display refresh rate
+     * 
+     * @param frameRate the new frame rate
+     * @throws IllegalArgumentException if frameRate is outside the range [1, 1000]
+     */
+    public static void setFrameRate(int frameRate) throws IllegalArgumentException {
+        if (frameRate < 1 || frameRate > 1000)
+            throw new IllegalArgumentException("Value outside range [1, 1000]");
+        
+        AnimationClock.frameRate = frameRate;
+        clock.setDelay(1000 / frameRate);
+        clock.setInitialDelay(1000 / frameRate);
+    }
+}
@@ -0,0 +1,259 @@
+package ui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import ui.enums.RenderingQuality;
+
+/**
+ * Cache of pre-rendered backgrounds for {@link ColorButton} and its subclasses<br>
+ * Anti-aliased round rectangles are expensive to rasterize, so each distinct
+ * combination of size, radius, colors and state is rendered once into an
+ * image which is later copied to the screen.
+ * 
+ * @author cristopher
+ * @see ColorButton#paintCustomBorder(java.awt.Graphics2D, java.awt.Color)
+ */
+public class ButtonBackgroundCache {
+    /**
+     * Maximum amount of backgrounds kept in memory, the least recently used
+     * background is discarded first
+     */
+    private static int maximumEntries = 256;
+    
+    /**
+     * If false, backgrounds will be painted directly on every paint call
+     */
+    private static boolean enabled = true;
+    
+    private static int hits = 0;
+    private static int misses = 0;
+    
+    private static final LinkedHashMap<Key, BufferedImage> backgrounds = new LinkedHashMap<Key, BufferedImage>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, BufferedImage> eldest) {
+            return size() > maximumEntries;
+        }
+    };
+    
+    private ButtonBackgroundCache() { }
+    
+    /**
+     * @return true if backgrounds are being cached
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Turns on or off the background cache, turning it off will also discard
+     * all cached backgrounds
+     * 
+     * @param enabled if false, backgrounds will be painted on every paint call
+     */
+    public static void setEnabled(boolean enabled) {
+        ButtonBackgroundCache.enabled = enabled;
+        
+        if (!enabled)
+            clear();
+    }
+    
+    /**
+     * Changes the maximum amount of cached backgrounds
+     * 
+     * @param maximumEntries the new limit
+     * @throws IllegalArgumentException if maximumEntries is less than 1
+     */
+    public static synchronized void setMaximumEntries(int maximumEntries) throws IllegalArgumentException {
+        if (maximumEntries < 1)
+            throw new IllegalArgumentException("Maximum entries must be greater than zero");
+        
+        ButtonBackgroundCache.maximumEntries = maximumEntries;
+        
+        while (backgrounds.size() > maximumEntries)
+            backgrounds.remove(backgrounds.keySet().iterator().next());
+    }
+    
+    /**
+     * Discards all cached backgrounds
+     */
+    public static synchronized void clear() {
+        backgrounds.clear();
+        hits = 0;
+        misses = 0;
+    }
+    
+    /**
+     * @return the amount of cached backgrounds
+     */
+    public static synchronized int size() {
+        return backgrounds.size();
+    }
+    
+    /**
+     * @return a string with the amount of entries, hits and misses of the cache
+     */
+    public static synchronized String getStatistics() {
+        return "entries=" + backgrounds.size() + ", hits=" + hits + ", misses=" + misses;
+    }
+    
+    /**
+     * Paints a button background, the cached image is used if available
+     * 
+     * @param g2D the Graphics2D object to paint in
+     * @param width the component width
+     * @param height the component height
+     * @param radius the corner radius
+     * @param fillColor the background color
+     * @param borderColor the border color, null if no border should be painted
+     * @param roundCorners if true, corners will be rounded
+     * @param quality the rendering profile, if null the active profile is used
+     */
+    public static void paint(Graphics2D g2D, int width, int height, int radius, Color fillColor, Color borderColor, boolean roundCorners, RenderingQuality quality) {
+        if (width <= 0 || height <= 0)
+            return;
+        
+        if (!enabled) {
+            paintBackground(g2D, width, height, radius, fillColor, borderColor, roundCorners, quality);
+            return;
+        }
+        
+        AffineTransform transform = g2D.getTransform();
+        double scaleX = Math.abs(transform.getScaleX());
+        double scaleY = Math.abs(transform.getScaleY());
+        
+        if (scaleX == 0 || scaleY == 0 || transform.getShearX() != 0 || transform.getShearY() != 0) {
+            paintBackground(g2D, width, height, radius, fillColor, borderColor, roundCorners, quality);
+            return;
+        }
+        
+        BufferedImage background = getBackground(width, height, radius, fillColor, borderColor, roundCorners, quality, scaleX, scaleY);
+        g2D.drawImage(background, 0, 0, width, height, null);
+    }
+    
+    /**
+     * Retrieves a pre-rendered background, it will be created if it's not
+     * cached yet. This method can be called from any thread.
+     * 
+     * @param width the component width
+     * @param height the component height
+     * @param radius the corner radius
+     * @param fillColor the background color
+     * @param borderColor the border color, null if no border should be painted
+     * @param roundCorners if true, corners will be rounded
+     * @param quality the rendering profile, if null the active profile is used
+     * @param scaleX the horizontal device scale
+     * @param scaleY the vertical device scale
+     * @return an image of <code>width * scaleX</code> by <code>height * scaleY</code> pixels
+     */
+    public static BufferedImage getBackground(int width, int height, int radius, Color fillColor, Color borderColor, boolean roundCorners, RenderingQuality quality, double scaleX, double scaleY) {
+        if (quality == null)
+            quality = UIProperties.getRenderingQuality();
+        
+        Key key = new Key(width, height, radius, fillColor, borderColor, roundCorners, quality, scaleX, scaleY);
+        
+        synchronized (ButtonBackgroundCache.class) {
+            BufferedImage background = backgrounds.get(key);
+            if (background != null) {
+                hits++;
+                return background;
+            }
+            
+            misses++;
+        }
+        
+        BufferedImage background = new BufferedImage(
+                Math.max(1, (int) Math.ceil(width * scaleX)),
+                Math.max(1, (int) Math.ceil(height * scaleY)),
+                BufferedImage.TYPE_INT_ARGB
+        );
+        
+        Graphics2D g2D = background.createGraphics();
+        g2D.scale(scaleX, scaleY);
+        paintBackground(g2D, width, height, radius, fillColor, borderColor, roundCorners, quality);
+        g2D.dispose();
+        
+        synchronized (ButtonBackgroundCache.class) {
+            backgrounds.put(key, background);
+        }
+        
+        return background;
+    }
+    
+    /**
+     * Paints the background and border without using the cache
+     * 
+     * @param g2D the Graphics2D object to paint in
+     * @param width the component width
+     * @param height the component height
+     * @param radius the corner radius
+     * @param fillColor the background color
+     * @param borderColor the border color, null if no border should be painted
+     * @param roundCorners if true, corners will be rounded
+     * @param quality the rendering profile, if null the active profile is used
+     */
+    public static void paintBackground(Graphics2D g2D, int width, int height, int radius, Color fillColor, Color borderColor, boolean roundCorners, RenderingQuality quality) {
+        UIProperties.applyRenderingHints(g2D, quality);
+        
+        if (borderColor != null) {
+            g2D.setColor(borderColor);
+            
+            if (roundCorners)
+                g2D.drawRoundRect(1, 1, width - 2, height - 2, radius, radius);
+            else
+                g2D.drawRect(0, 0, width, height);
+        }
+        
+        g2D.setColor(fillColor);
+        
+        if (roundCorners)
+            g2D.fillRoundRect(2, 2, width - 3, height - 3, radius, radius);
+        else
+            g2D.fillRect(0, 0, width, height);
+    }
+    
+    private static final class Key {
+        private final int width, height, radius;
+        private final int fillColor, borderColor;
+        private final boolean paintBorder, roundCorners;
+        private final RenderingQuality quality;
+        private final double scaleX, scaleY;
+        
+        private Key(int width, int height, int radius, Color fillColor, Color borderColor, boolean roundCorners, RenderingQuality quality, double scaleX, double scaleY) {
+            this.width = width;
+            this.height = height;
+            this.radius = roundCorners ? radius : 0;
+            this.fillColor = fillColor == null ? 0 : fillColor.getRGB();
+            this.borderColor = borderColor == null ? 0 : borderColor.getRGB();
+            this.paintBorder = borderColor != null;
+            this.roundCorners = roundCorners;
+            this.quality = quality;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            
+            Key k = (Key) o;
+            return width == k.width && height == k.height && radius == k.radius
+                    && fillColor == k.fillColor && borderColor == k.borderColor
+                    && paintBorder == k.paintBorder && roundCorners == k.roundCorners
+                    && quality == k.quality
+                    && scaleX == k.scaleX && scaleY == k.scaleY;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(width, height, radius, fillColor, borderColor, paintBorder, roundCorners, quality, scaleX, scaleY);
+        }
+    }
+}
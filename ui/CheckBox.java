@@ -4,7 +4,6 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 
 /**
  * Custom painted checkbox button
@@ -52,21 +51,22 @@ public class CheckBox extends ColorButton {
         else
             return;
         
-        g2D.setStroke(new BasicStroke(3 * UIProperties.uiScale));
+        Theme theme = UIProperties.getTheme();
+        float scale = theme.uiScale;
+        
+        g2D.setStroke(new BasicStroke(3 * scale));
 
-        int size = UIProperties.checkboxSideLength;
+        int size = theme.checkboxSideLength;
 
-        g2D.drawLine((int) (size - 18 * UIProperties.uiScale), (int) (size - 8 * UIProperties.uiScale), (int) (size - 14 * UIProperties.uiScale), (int) (size - 4 * UIProperties.uiScale));
-        g2D.drawLine((int) (size - 14 * UIProperties.uiScale), (int) (size - 4 * UIProperties.uiScale), (int) (size - 4 * UIProperties.uiScale), (int) (size - 16 * UIProperties.uiScale));
+        g2D.drawLine((int) (size - 18 * scale), (int) (size - 8 * scale), (int) (size - 14 * scale), (int) (size - 4 * scale));
+        g2D.drawLine((int) (size - 14 * scale), (int) (size - 4 * scale), (int) (size - 4 * scale), (int) (size - 16 * scale));
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         Graphics2D g2D = (Graphics2D) g;
         
-        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-        g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        UIProperties.applyRenderingHints(g2D, renderingQuality);
 
         g.setColor(BGColor);
         
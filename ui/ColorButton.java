@@ -5,10 +5,12 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
+import java.awt.GraphicsConfiguration;
+import java.awt.geom.AffineTransform;
 import javax.swing.JButton;
 import javax.swing.SpringLayout;
 import ui.enums.LabelType;
+import ui.enums.RenderingQuality;
 import utils.LibUtilities;
 
 /**
@@ -58,6 +60,12 @@ public class ColorButton extends JButton implements ComponentSetup, UIFont {
      */
     protected boolean paintBorder = false;
     
+    /**
+     * Rendering profile for this component, if null the profile set in 
+     * {@link UIProperties} is used
+     */
+    protected RenderingQuality renderingQuality = null;
+    
     /**
      * Condition that determines if the background and border are going to be painted
      */
@@ -157,7 +165,7 @@ public class ColorButton extends JButton implements ComponentSetup, UIFont {
         
         label.setForeground(FGColor);
         
-        repaint();
+        RepaintScheduler.repaint(this);
     }
 
     @Override
@@ -180,7 +188,7 @@ public class ColorButton extends JButton implements ComponentSetup, UIFont {
         
         label.setForeground(FGColor);
         
-        repaint();
+        RepaintScheduler.repaint(this);
     }
     
     @Override
@@ -223,13 +231,13 @@ public class ColorButton extends JButton implements ComponentSetup, UIFont {
     @Override
     public void setRoundCorners(boolean roundCorners) {
         this.roundCorners = roundCorners;
-        repaint();
+        RepaintScheduler.repaint(this);
     }
 
     @Override
     public void setPaintBorder(boolean paintBorder) {
         this.paintBorder = paintBorder;
-        repaint();
+        RepaintScheduler.repaint(this);
     }
 
     @Override
@@ -237,10 +245,6 @@ public class ColorButton extends JButton implements ComponentSetup, UIFont {
         if (paint) {
             Graphics2D g2D = (Graphics2D) g;
 
-            g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-            g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-
             Color c;
             
             if ((getModel().isRollover() || paintAsHovering) && isEnabled()) {
@@ -256,7 +260,7 @@ public class ColorButton extends JButton implements ComponentSetup, UIFont {
             return;
         }
         
-        label.setForeground(UIProperties.APP_FG);
+        label.setForeground(UIProperties.getTheme().fg);
     }
     
     private void updateLabelSize() {
@@ -303,27 +307,68 @@ public class ColorButton extends JButton implements ComponentSetup, UIFont {
     }
     
     /**
-     * Draws the button background and border
+     * Draws the button background and border<br>
+     * Backgrounds are pre-rendered and reused while {@link ButtonBackgroundCache} 
+     * is enabled
      * 
      * @param g2D the Graphics2D object to paint in
      * @param fillColor the button's background color
+     * @see ButtonBackgroundCache#setEnabled(boolean)
      */
     protected void paintCustomBorder(Graphics2D g2D, Color fillColor) {
-        if (paintBorder) {
-            g2D.setColor(UIProperties.APP_FG);
-            
-            if (roundCorners)
-                g2D.drawRoundRect(1, 1, getWidth() - 2, getHeight() - 2, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
-            else
-                g2D.drawRect(0, 0, getWidth(), getHeight());
+        Theme theme = UIProperties.getTheme();
+        ButtonBackgroundCache.paint(g2D, getWidth(), getHeight(), theme.buttonRoundRadius, fillColor, paintBorder ? theme.fg : null, roundCorners, renderingQuality);
+    }
+    
+    /**
+     * Captures what's needed to pre-render the backgrounds this button 
+     * will use once a theme is applied, this must be called from the EDT
+     * 
+     * @param theme the theme that will be applied
+     * @return a task that can run on any thread, null if there is nothing 
+     * to prepare
+     * @see ThemeTransition
+     */
+    Runnable prepareTheme(Theme theme) {
+        int w = getWidth();
+        int h = getHeight();
+        
+        if (!paint || w <= 0 || h <= 0 || !ButtonBackgroundCache.isEnabled())
+            return null;
+        
+        Color bg = BGColor;
+        Color hbg = HBGColor;
+        
+        if (appTheme) {
+            hbg = theme.bg;
+            bg = theme.bga;
         }
         
-        g2D.setColor(fillColor);
-
-        if (roundCorners)
-            g2D.fillRoundRect(2, 2, getWidth() - 3, getHeight() - 3, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
-        else
-            g2D.fillRect(0, 0, getWidth(), getHeight());
+        if (appColor) {
+            hbg = theme.bgColor;
+            bg = theme.bga;
+        }
+        
+        if (onlyAppColor) {
+            hbg = !theme.accentColors ? Color.LIGHT_GRAY : theme.bgaColor;
+            bg = theme.bgColor;
+        }
+        
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        AffineTransform transform = gc == null ? new AffineTransform() : gc.getDefaultTransform();
+        
+        double scaleX = Math.abs(transform.getScaleX());
+        double scaleY = Math.abs(transform.getScaleY());
+        Color fillColor = bg;
+        Color hoverColor = hbg;
+        Color borderColor = paintBorder ? theme.fg : null;
+        boolean round = roundCorners;
+        RenderingQuality quality = renderingQuality;
+        
+        return () -> {
+            ButtonBackgroundCache.getBackground(w, h, theme.buttonRoundRadius, fillColor, borderColor, round, quality, scaleX, scaleY);
+            ButtonBackgroundCache.getBackground(w, h, theme.buttonRoundRadius, hoverColor, borderColor, round, quality, scaleX, scaleY);
+        };
     }
 
     /**
@@ -334,7 +379,7 @@ public class ColorButton extends JButton implements ComponentSetup, UIFont {
      */
     public void setPaintAsHovering(boolean paintAsHovering) {
         this.paintAsHovering = paintAsHovering;
-        repaint();
+        RepaintScheduler.repaint(this);
     }
 
     /**
@@ -390,4 +435,23 @@ public class ColorButton extends JButton implements ComponentSetup, UIFont {
     public void setFontColor(Color fontColor) {
         label.setFontColor(fontColor);
     }
+    
+    /**
+     * Overrides the rendering profile for this component
+     * 
+     * @param renderingQuality the profile, null to use the global profile
+     * @see UIProperties#setRenderingQuality(ui.enums.RenderingQuality) 
+     */
+    public void setRenderingQuality(RenderingQuality renderingQuality) {
+        this.renderingQuality = renderingQuality;
+        RepaintScheduler.repaint(this);
+    }
+    
+    /**
+     * @return the rendering profile override for this component, null if
+     * the global profile is used
+     */
+    public RenderingQuality getRenderingQuality() {
+        return renderingQuality;
+    }
 }
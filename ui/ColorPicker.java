@@ -4,13 +4,13 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import javax.swing.JComponent;
 import javax.swing.JTextField;
+import ui.enums.RenderingQuality;
 import ui.enums.TextAlignment;
 import ui.enums.UIAlignment;
 
@@ -23,6 +23,12 @@ public class ColorPicker extends Panel {
     private Color selectedColor = new Color(0, 0, 0);
     private String selectedColorHex = "#000000";
     
+    /**
+     * Rendering profile for this component, if null the profile set in 
+     * {@link UIProperties} is used
+     */
+    private RenderingQuality renderingQuality = null;
+    
     private final JComponent colorPreview = new JComponent() {
         int rwidth = 180, rheight = 30;
         
@@ -30,14 +36,14 @@ public class ColorPicker extends Panel {
         protected void paintComponent(Graphics g) {
             Graphics2D g2D = (Graphics2D) g;
         
-            g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-            g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            UIProperties.applyRenderingHints(g2D, renderingQuality);
+            
+            Theme theme = UIProperties.getTheme();
             
-            g2D.setColor(UIProperties.APP_FG);
-            g2D.drawRoundRect(0, 0, getWidth() - 1, getHeight() - 1, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+            g2D.setColor(theme.fg);
+            g2D.drawRoundRect(0, 0, getWidth() - 1, getHeight() - 1, theme.buttonRoundRadius, theme.buttonRoundRadius);
             g2D.setColor(selectedColor);
-            g2D.fillRoundRect(1, 1, getWidth() - 2, getHeight() - 2, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+            g2D.fillRoundRect(1, 1, getWidth() - 2, getHeight() - 2, theme.buttonRoundRadius, theme.buttonRoundRadius);
         }
 
         @Override
@@ -429,4 +435,23 @@ public class ColorPicker extends Panel {
     public void setComponentsToUpdate(JComponent ... componentsToUpdate) {
         this.componentsToUpdate = componentsToUpdate;
     }
+    
+    /**
+     * Overrides the rendering profile for this component
+     * 
+     * @param renderingQuality the profile, null to use the global profile
+     * @see UIProperties#setRenderingQuality(ui.enums.RenderingQuality) 
+     */
+    public void setRenderingQuality(RenderingQuality renderingQuality) {
+        this.renderingQuality = renderingQuality;
+        RepaintScheduler.repaint(colorPreview);
+    }
+    
+    /**
+     * @return the rendering profile override for this component, null if
+     * the global profile is used
+     */
+    public RenderingQuality getRenderingQuality() {
+        return renderingQuality;
+    }
 }
@@ -1,50 +1,87 @@
 package ui;
 
-import java.awt.Color;
 import java.awt.Dimension;
 import javax.swing.JButton;
+import javax.swing.JScrollBar;
 import javax.swing.plaf.basic.BasicScrollBarUI;
 
 /**
- * Custom UI for scroll-bars
+ * Custom UI for scroll-bars<br>
+ * Colors and width are taken from {@link UIProperties}, once installed the
+ * UI can be refreshed in place with {@link ColorScrollBarUI#update(javax.swing.JScrollBar)}
  * 
  * @author cristopher
  */
 public class ColorScrollBarUI extends BasicScrollBarUI {
-    private final Color customTrackColor;
-    private final Color barColor;
-
+    /**
+     * Version of the theme this UI was configured with
+     * @see Theme#version
+     */
+    private long themeVersion = -1;
+    
     /**
      * Creates a new ScrollBar
      */
-    public ColorScrollBarUI() {
-        this.customTrackColor = UIProperties.APP_BGA;
-        this.barColor = UIProperties.DIM_TEXT_COLOR;
+    public ColorScrollBarUI() { }
+    
+    /**
+     * Refreshes the colors and width of a scroll bar, a ColorScrollBarUI is
+     * installed only if the scroll bar doesn't have one yet
+     * 
+     * @param scrollBar the scroll bar
+     */
+    public static void update(JScrollBar scrollBar) {
+        if (scrollBar.getUI() instanceof ColorScrollBarUI)
+            ((ColorScrollBarUI) scrollBar.getUI()).updateUIProperties();
+        else
+            scrollBar.setUI(new ColorScrollBarUI());
     }
-
+    
+    /**
+     * Takes again colors and width from {@link UIProperties} without
+     * reinstalling this UI, nothing is done if the theme hasn't changed
+     */
+    public void updateUIProperties() {
+        Theme theme = UIProperties.getTheme();
+        if (theme.version == themeVersion)
+            return;
+        
+        configureScrollBarColors();
+        
+        if (scrollBarWidth != theme.scrollbarWidth) {
+            scrollBarWidth = theme.scrollbarWidth;
+            scrollbar.revalidate();
+        }
+        
+        scrollbar.repaint();
+    }
+    
     @Override
     protected void configureScrollBarColors() {
-        thumbColor = barColor;
-        trackColor = customTrackColor;
+        Theme theme = UIProperties.getTheme();
+        themeVersion = theme.version;
+        
+        thumbColor = UIProperties.DIM_TEXT_COLOR;
+        trackColor = theme.bga;
         scrollbar.setBorder(null);
     }
-
+    
     @Override
     protected JButton createDecreaseButton(int orientation) {
         return noButton();
     }
-
+    
     @Override
     protected JButton createIncreaseButton(int orientation) {
         return noButton();
     }
-
+    
     @Override
     protected void installComponents() {
-        scrollBarWidth = UIProperties.scrollbarWidth;
+        scrollBarWidth = UIProperties.getTheme().scrollbarWidth;
         super.installComponents();
     }
-
+    
     private JButton noButton() {
         JButton b = new JButton();
         b.setPreferredSize(new Dimension(0, 0));
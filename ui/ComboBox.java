@@ -4,7 +4,6 @@ import java.awt.BasicStroke;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.util.NoSuchElementException;
@@ -27,19 +26,19 @@ public class ComboBox extends ColorButton {
         protected void paintComponent(Graphics g) {
             Graphics2D g2D = (Graphics2D) g;
         
-            g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-            g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            UIProperties.applyRenderingHints(g2D);
+            
+            float scale = UIProperties.getTheme().uiScale;
             
             g2D.setColor(UIProperties.DIM_TEXT_COLOR);
-            g2D.setStroke(new BasicStroke(1.5f * UIProperties.uiScale));
+            g2D.setStroke(new BasicStroke(1.5f * scale));
             
             int halfWidth = getPreferredSize().width / 2;
             int height = getPreferredSize().height;
             
-            int yPadding = (int) (7 * UIProperties.uiScale);
-            int yEndPadding = (int) (9 * UIProperties.uiScale);
-            int separation = (int) (3 * UIProperties.uiScale);
+            int yPadding = (int) (7 * scale);
+            int yEndPadding = (int) (9 * scale);
+            int separation = (int) (3 * scale);
             
             g2D.drawLine(halfWidth, yPadding, halfWidth - separation, yEndPadding);
             g2D.drawLine(halfWidth, yPadding, halfWidth + separation, yEndPadding);
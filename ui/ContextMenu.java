@@ -113,8 +113,8 @@ public class ContextMenu extends JPopupMenu implements ComponentSetup {
     public void updateUISize() {
         if (useScrollPane) {
             viewPanel.setPreferredSize(new Dimension(width, height));
-            viewPanel.getVerticalScrollBar().setUI(new ColorScrollBarUI());
-            viewPanel.getHorizontalScrollBar().setUI(new ColorScrollBarUI());
+            ColorScrollBarUI.update(viewPanel.getVerticalScrollBar());
+            ColorScrollBarUI.update(viewPanel.getHorizontalScrollBar());
             
             viewPanel.getVerticalScrollBar().setUnitIncrement((int) (15 * UIProperties.uiScale));
             viewPanel.getHorizontalScrollBar().setUnitIncrement((int) (15 * UIProperties.uiScale));
@@ -133,8 +133,8 @@ public class ContextMenu extends JPopupMenu implements ComponentSetup {
         setBackground(UIProperties.APP_BGA);
         
         if (useScrollPane) {
-            viewPanel.getVerticalScrollBar().setUI(new ColorScrollBarUI());
-            viewPanel.getHorizontalScrollBar().setUI(new ColorScrollBarUI());
+            ColorScrollBarUI.update(viewPanel.getVerticalScrollBar());
+            ColorScrollBarUI.update(viewPanel.getHorizontalScrollBar());
         }
         
         viewContainer.updateUITheme();
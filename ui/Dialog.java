@@ -95,10 +95,20 @@ public class Dialog extends JDialog implements ComponentSetup {
         width = (int) (width * UIProperties.uiScale);
         height = (int) (height * UIProperties.uiScale);
         
-        super.setSize(width, height + (isUndecorated() ? 0 : UIProperties.TITLE_BAR_HEIGHT));
+        super.setSize(width, height + (isUndecorated() ? 0 : UIProperties.getTitleBarHeight()));
         
         setLocationRelativeTo(null);
     }
+    
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        
+        // Decorations height is only known once a window has a native peer,
+        // the first window to get one has to be resized
+        if (!isUndecorated() && UIProperties.updateTitleBarHeight(this))
+            setSize(width, height);
+    }
 
     /**
      * Make window visible
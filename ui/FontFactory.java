@@ -0,0 +1,102 @@
+package ui;
+
+import java.awt.Font;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * Shared font instances<br>
+ * Fonts are interned by family, style, size and UI scale, so components
+ * customized the same way share a single Font object (and its glyph caches)
+ * instead of creating their own.
+ * 
+ * @author cristopher
+ * @see UIProperties#initFonts()
+ * @see Label#updateUIFont()
+ */
+public class FontFactory {
+    private static final HashMap<Key, Font> fonts = new HashMap<>();
+    
+    private FontFactory() { }
+    
+    /**
+     * Retrieves a font scaled with the current UI scale, the same instance
+     * is returned for equal parameters
+     * 
+     * @param family the font family
+     * @param style the font style, such as {@link Font#BOLD}
+     * @param size the font size before scaling
+     * @return the shared font
+     * @see UIProperties#getUiScale()
+     */
+    public static Font getFont(String family, int style, int size) {
+        return getFont(family, style, size, UIProperties.uiScale);
+    }
+    
+    /**
+     * Retrieves a font scaled with a given UI scale, the same instance is
+     * returned for equal parameters
+     * 
+     * @param family the font family
+     * @param style the font style, such as {@link Font#BOLD}
+     * @param size the font size before scaling
+     * @param uiScale the scale
+     * @return the shared font
+     */
+    public static synchronized Font getFont(String family, int style, int size, float uiScale) {
+        Key key = new Key(family, style, size, uiScale);
+        
+        Font font = fonts.get(key);
+        if (font == null) {
+            font = new Font(family, style, (int) (size * uiScale));
+            fonts.put(key, font);
+        }
+        
+        return font;
+    }
+    
+    /**
+     * @return the amount of distinct font instances created by this factory
+     */
+    public static synchronized int getFontCount() {
+        return fonts.size();
+    }
+    
+    /**
+     * Discards all fonts, components will keep the fonts they already have
+     * until their font is updated
+     */
+    public static synchronized void clear() {
+        fonts.clear();
+    }
+    
+    private static final class Key {
+        private final String family;
+        private final int style, size;
+        private final float uiScale;
+        
+        private Key(String family, int style, int size, float uiScale) {
+            this.family = family;
+            this.style = style;
+            this.size = size;
+            this.uiScale = uiScale;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            
+            Key k = (Key) o;
+            return style == k.style && size == k.size && uiScale == k.uiScale
+                    && Objects.equals(family, k.family);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(family, style, size, uiScale);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.HashMap;
+import javax.swing.ImageIcon;
 import javax.swing.SpringLayout;
 import ui.enums.ImageButtonArrangement;
 import ui.enums.LabelType;
@@ -33,6 +35,13 @@ public class ImageButton extends ColorButton {
     private boolean updatingColors = false;
     private boolean lockPaintAsHovering = false;
     
+    /**
+     * Scaled icons of the themed and hover images, scaling is slow so icons
+     * are reused while the UI scale doesn't change. Icons of replaced images
+     * are dropped
+     */
+    private final HashMap<BufferedImage, ImageIcon> scaledIcons = new HashMap<>();
+    
     /**
      * Creates a new ImageButton without image and no text
      * 
@@ -292,11 +301,70 @@ public class ImageButton extends ColorButton {
         return super.getText();
     }
     
+    private ImageIcon getScaledIcon(BufferedImage image) {
+        return getScaledIcon(image, (int) (imageWidth * UIProperties.uiScale), (int) (imageHeight * UIProperties.uiScale));
+    }
+    
+    /**
+     * Scales an image or reuses a previous scaled icon, this method can be 
+     * called from any thread
+     * 
+     * @param image the image
+     * @param width the icon width
+     * @param height the icon height
+     * @return the icon
+     */
+    private ImageIcon getScaledIcon(BufferedImage image, int width, int height) {
+        synchronized (scaledIcons) {
+            ImageIcon icon = scaledIcons.get(image);
+            if (icon != null && icon.getIconWidth() == width && icon.getIconHeight() == height)
+                return icon;
+        }
+        
+        ImageIcon icon = LibUtilities.scaleImage(image, width, height);
+        
+        synchronized (scaledIcons) {
+            scaledIcons.put(image, icon);
+        }
+        
+        dropReplacedIcons();
+        
+        return icon;
+    }
+    
+    private void dropReplacedIcons() {
+        synchronized (scaledIcons) {
+            scaledIcons.keySet().removeIf((image) -> image != lightThemedImage && image != darkThemedImage && image != hoverImage);
+        }
+    }
+    
+    @Override
+    Runnable prepareTheme(Theme theme) {
+        Runnable backgrounds = super.prepareTheme(theme);
+        BufferedImage image = theme.lightTheme ? lightThemedImage : darkThemedImage;
+        
+        if (image == null)
+            return backgrounds;
+        
+        BufferedImage hover = hoverImage;
+        int w = (int) (imageWidth * theme.uiScale);
+        int h = (int) (imageHeight * theme.uiScale);
+        
+        return () -> {
+            if (backgrounds != null)
+                backgrounds.run();
+            
+            getScaledIcon(image, w, h);
+            if (hover != null)
+                getScaledIcon(hover, w, h);
+        };
+    }
+    
     private void setThemedImage() {
         if (UIProperties.isLightThemeActive())
-            imageLabel.setIcon(LibUtilities.scaleImage(lightThemedImage, (int) (imageWidth * UIProperties.uiScale), (int) (imageHeight * UIProperties.uiScale)));
+            imageLabel.setIcon(getScaledIcon(lightThemedImage));
         else if (UIProperties.isDarkThemeActive())
-            imageLabel.setIcon(LibUtilities.scaleImage(darkThemedImage, (int) (imageWidth * UIProperties.uiScale), (int) (imageHeight * UIProperties.uiScale)));
+            imageLabel.setIcon(getScaledIcon(darkThemedImage));
     }
     
     private void updateButton() {
@@ -312,7 +380,7 @@ public class ImageButton extends ColorButton {
         }
         
         if ((onlyAppColor || lockPaintAsHovering) && hoverImage != null) {
-            imageLabel.setIcon(LibUtilities.scaleImage(hoverImage, (int) (imageWidth * UIProperties.uiScale), (int) (imageHeight * UIProperties.uiScale)));
+            imageLabel.setIcon(getScaledIcon(hoverImage));
             updatingColors = false;
             return;
         }
@@ -326,11 +394,11 @@ public class ImageButton extends ColorButton {
         boolean _paintAsHovering = getModel().isRollover();
         
         if (UIProperties.isLightThemeActive() && !_paintAsHovering)
-            imageLabel.setIcon(LibUtilities.scaleImage(lightThemedImage, (int) (imageWidth * UIProperties.uiScale), (int) (imageHeight * UIProperties.uiScale)));
+            imageLabel.setIcon(getScaledIcon(lightThemedImage));
         else if (UIProperties.isDarkThemeActive())
-            imageLabel.setIcon(LibUtilities.scaleImage(darkThemedImage, (int) (imageWidth * UIProperties.uiScale), (int) (imageHeight * UIProperties.uiScale)));
+            imageLabel.setIcon(getScaledIcon(darkThemedImage));
         else if (hoverImage != null && _paintAsHovering)
-            imageLabel.setIcon(LibUtilities.scaleImage(hoverImage, (int) (imageWidth * UIProperties.uiScale), (int) (imageHeight * UIProperties.uiScale)));
+            imageLabel.setIcon(getScaledIcon(hoverImage));
         
         updatingColors = false;
     }
@@ -375,7 +443,7 @@ public class ImageButton extends ColorButton {
         width = (int) (imageWidth * UIProperties.uiScale);
         height = (int) (imageHeight * UIProperties.uiScale);
         
-        imageLabel.setIcon(LibUtilities.scaleImage(darkThemedImage, width, height));
+        imageLabel.setIcon(getScaledIcon(darkThemedImage, width, height));
     }
     
     /**
@@ -402,7 +470,7 @@ public class ImageButton extends ColorButton {
         width = (int) (imageWidth * UIProperties.uiScale);
         height = (int) (imageHeight * UIProperties.uiScale);
         
-        imageLabel.setIcon(LibUtilities.scaleImage(darkThemedImage, width, height));
+        imageLabel.setIcon(getScaledIcon(darkThemedImage, width, height));
     }
     
     /**
@@ -424,7 +492,7 @@ public class ImageButton extends ColorButton {
         width = (int) (imageWidth * UIProperties.uiScale);
         height = (int) (imageHeight * UIProperties.uiScale);
         
-        imageLabel.setIcon(LibUtilities.scaleImage(darkThemedImage, width, height));
+        imageLabel.setIcon(getScaledIcon(darkThemedImage, width, height));
     }
     
     /**
@@ -447,7 +515,7 @@ public class ImageButton extends ColorButton {
         width = (int) (imageWidth * UIProperties.uiScale);
         height = (int) (imageHeight * UIProperties.uiScale);
         
-        imageLabel.setIcon(LibUtilities.scaleImage(lightThemedImage, width, height));
+        imageLabel.setIcon(getScaledIcon(lightThemedImage, width, height));
     }
     
     /**
@@ -474,7 +542,7 @@ public class ImageButton extends ColorButton {
         width = (int) (imageWidth * UIProperties.uiScale);
         height = (int) (imageHeight * UIProperties.uiScale);
         
-        imageLabel.setIcon(LibUtilities.scaleImage(lightThemedImage, width, height));
+        imageLabel.setIcon(getScaledIcon(lightThemedImage, width, height));
     }
     
     /**
@@ -496,7 +564,7 @@ public class ImageButton extends ColorButton {
         width = (int) (imageWidth * UIProperties.uiScale);
         height = (int) (imageHeight * UIProperties.uiScale);
         
-        imageLabel.setIcon(LibUtilities.scaleImage(lightThemedImage, width, height));
+        imageLabel.setIcon(getScaledIcon(lightThemedImage, width, height));
     }
     
     /**
@@ -507,6 +575,7 @@ public class ImageButton extends ColorButton {
      */
     public void setHoverImage(File imageFile) {
         hoverImage = LibUtilities.readImage(imageFile);
+        dropReplacedIcons();
     }
     
     /**
@@ -520,6 +589,8 @@ public class ImageButton extends ColorButton {
             hoverImage = LibUtilities.readImage(imageData);
         else
             hoverImage = LibUtilities.loadBase64StringAsImage(imageData);
+        
+        dropReplacedIcons();
     }
     
     /**
@@ -529,6 +600,7 @@ public class ImageButton extends ColorButton {
      */
     public void setHoverImage(BufferedImage image) {
         hoverImage = image;
+        dropReplacedIcons();
     }
 
     /**
@@ -109,8 +109,7 @@ public class Label extends JLabel implements ComponentSetup, UIFont {
                 else
                     fontStyle = boldFont ? Font.BOLD : Font.ITALIC;
                 
-                Font f = new Font(monospacedFont ? Font.MONOSPACED : fontFamily, fontStyle, (int) (fontSize * UIProperties.uiScale));
-                setFont(f);
+                setFont(FontFactory.getFont(monospacedFont ? Font.MONOSPACED : fontFamily, fontStyle, fontSize));
             break;
         }
     }
@@ -4,7 +4,6 @@ import java.awt.BasicStroke;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
@@ -31,9 +30,7 @@ public class NumberSelector extends Panel {
             
             Graphics2D g2D = (Graphics2D) g;
         
-            g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-            g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            UIProperties.applyRenderingHints(g2D, renderingQuality);
         
             if (getModel().isRollover() || paintAsHovering)
                 g2D.setColor(HFGColor);
@@ -46,9 +43,10 @@ public class NumberSelector extends Panel {
             int halfWidth = swidth / 2;
             int halfHeight = sheight / 2;
             
-            int padding = (int) (7 * UIProperties.uiScale);
+            float scale = UIProperties.getTheme().uiScale;
+            int padding = (int) (7 * scale);
             
-            g2D.setStroke(new BasicStroke(2 * UIProperties.uiScale));
+            g2D.setStroke(new BasicStroke(2 * scale));
             g2D.drawLine(padding, halfHeight, swidth - padding, halfHeight);
             g2D.drawLine(halfWidth, padding, halfWidth, sheight - padding);
             
@@ -61,9 +59,7 @@ public class NumberSelector extends Panel {
             
             Graphics2D g2D = (Graphics2D) g;
         
-            g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-            g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            UIProperties.applyRenderingHints(g2D, renderingQuality);
         
             if (getModel().isRollover() || paintAsHovering)
                 g2D.setColor(HFGColor);
@@ -74,9 +70,10 @@ public class NumberSelector extends Panel {
             int sheight = getPreferredSize().height;
             
             int halfHeight = sheight / 2;
-            int padding = (int) (7 * UIProperties.uiScale);
+            float scale = UIProperties.getTheme().uiScale;
+            int padding = (int) (7 * scale);
             
-            g2D.setStroke(new BasicStroke(2 * UIProperties.uiScale));
+            g2D.setStroke(new BasicStroke(2 * scale));
             g2D.drawLine(padding, halfHeight, swidth - padding, halfHeight);
             
         }
@@ -231,6 +228,20 @@ public class NumberSelector extends Panel {
             }
         });
         
+        // A hidden selector never receives mouseReleased, so the auto-repeat 
+        // must be cancelled here
+        VisibilityTracker.install(this, (displayed) -> {
+            if (displayed)
+                return;
+            
+            pressed = false;
+            modifiedTimes = 0;
+            
+            slowValueModificator.stop();
+            normalValueModificator.stop();
+            fastValueModificator.stop();
+        });
+        
         numberField.addKeyListener(new KeyAdapter() {
             @Override
             public void keyReleased(KeyEvent e) {
@@ -4,11 +4,13 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.JComponent;
-import javax.swing.Timer;
+import javax.swing.SwingUtilities;
+import ui.enums.RenderingQuality;
 import ui.enums.UIOrientation;
-import utils.LibUtilities;
+import utils.ProgressListener;
 
 /**
  * Custom painted ProgressBar
@@ -25,6 +27,12 @@ public class ProgressBar extends JComponent implements ComponentSetup {
     protected boolean roundCorners = true;
     protected boolean paintBorder = false;
     
+    /**
+     * Rendering profile for this component, if null the profile set in 
+     * {@link UIProperties} is used
+     */
+    protected RenderingQuality renderingQuality = null;
+    
     /**
      * Background color
      */
@@ -73,16 +81,37 @@ public class ProgressBar extends JComponent implements ComponentSetup {
     private boolean indeterminatedEnded = true;
     private boolean indeterminate = false;
     
-    private Timer progressUpdater = new Timer(3, (Action) -> {
-        repaint();
-    });
+    /**
+     * Time in milliseconds the progress bar takes to move one pixel
+     */
+    private int progressStepInterval = 3;
     
-    private Timer indeterminatedUpdater = new Timer(4, (Action) -> {
-        repaint();
-    });
+    /**
+     * Time in milliseconds the indeterminate bar takes to grow or shrink one pixel
+     */
+    private int indeterminatedStepInterval = 4;
     
+    /**
+     * If true, steps are taken every <code>progressStepInterval</code> ms, 
+     * otherwise every <code>indeterminatedStepInterval</code> ms
+     */
+    private boolean progressStep = true;
     
-    private static boolean winPerformanceThreadsRunning = false;
+    /**
+     * Maximum time in milliseconds that a single frame can advance, this 
+     * avoids replaying a long backlog of steps after a stall
+     */
+    private static final int MAXIMUM_FRAME_TIME = 250;
+    
+    private long lastFrameTime;
+    private double pendingFrameTime = 0;
+    
+    private final Animated animation = this::nextFrame;
+    
+    /**
+     * If true, the animation was paused because this component isn't displayed
+     */
+    private boolean animationSuspended = false;
     
     
     /**
@@ -145,23 +174,16 @@ public class ProgressBar extends JComponent implements ComponentSetup {
         
         setBorder(null);
         
+        VisibilityTracker.install(this, (displayed) -> {
+            if (displayed)
+                resumeAnimation();
+            else
+                suspendAnimation();
+        });
+        
         updateUISize();
         updateUITheme();
         updateUIColors();
-        
-        // This code below starts a few threads for windows platforms, 
-        // this hopefully fixes poor performance with windows on Java 8 when 
-        // using multithreading. This might be more power consuming though...
-        //
-        if (!LibUtilities.IS_UNIX_LIKE && !winPerformanceThreadsRunning) {
-            winPerformanceThreadsRunning = true;
-            for (int i = 0; i < 5; i++) {
-                new Thread(() -> {
-                    while (true)
-                        try { Thread.sleep(2); } catch (InterruptedException ex) { }
-                }).start();
-            }
-        }
     }
 
     @Override
@@ -170,29 +192,10 @@ public class ProgressBar extends JComponent implements ComponentSetup {
         height = rheight;
         setPreferredSize(new Dimension(width, height));
         
-        boolean reRunProgressUpdater = progressUpdater.isRunning();
-        boolean reRunIndeterminatedUpdater = indeterminatedUpdater.isRunning();
-        
-        progressUpdater.stop();
-        indeterminatedUpdater.stop();
-        
         waitLimit = UIProperties.uiScale <= 1f ? 20 : UIProperties.uiScale <= 1.3f ? (int) (20 * UIProperties.uiScale * 2) : (int) (20 * UIProperties.uiScale * 3);
         
-        int progressUpdaterSpeed = UIProperties.uiScale <= 1f ? (int) (5 - (UIProperties.uiScale * 2)) : (int) (7 - (UIProperties.uiScale * 3));
-        progressUpdater = new Timer(progressUpdaterSpeed, (Action) -> {
-            repaint();
-        });
-    
-        int indeterminatedUpdaterSpeed = UIProperties.uiScale <= 1f ? (int) (6 - (UIProperties.uiScale * 2)) : (int) (8 - (UIProperties.uiScale * 3));
-        indeterminatedUpdater = new Timer(indeterminatedUpdaterSpeed, (Action) -> {
-            repaint();
-        });
-        
-        if (reRunProgressUpdater)
-            progressUpdater.start();
-        
-        if (reRunIndeterminatedUpdater)
-            indeterminatedUpdater.start();
+        progressStepInterval = Math.max(1, UIProperties.uiScale <= 1f ? (int) (5 - (UIProperties.uiScale * 2)) : (int) (7 - (UIProperties.uiScale * 3)));
+        indeterminatedStepInterval = Math.max(1, UIProperties.uiScale <= 1f ? (int) (6 - (UIProperties.uiScale * 2)) : (int) (8 - (UIProperties.uiScale * 3)));
     }
 
     @Override
@@ -205,7 +208,7 @@ public class ProgressBar extends JComponent implements ComponentSetup {
         if (appTheme)
             FGColor = UIProperties.APP_FG;
         
-        repaint();
+        RepaintScheduler.repaint(this);
     }
 
     @Override
@@ -215,7 +218,7 @@ public class ProgressBar extends JComponent implements ComponentSetup {
         if (appColor)
             FGColor = UIProperties.APP_BG_COLOR;
         
-        repaint();
+        RepaintScheduler.repaint(this);
     }
 
     @Override
@@ -239,28 +242,28 @@ public class ProgressBar extends JComponent implements ComponentSetup {
     @Override
     public void setRoundCorners(boolean roundCorners) {
         this.roundCorners = roundCorners;
-        repaint();
+        RepaintScheduler.repaint(this);
     }
 
     @Override
     public void setPaintBorder(boolean paintBorder) {
         this.paintBorder = paintBorder;
-        repaint();
+        RepaintScheduler.repaint(this);
     }
     
     @Override
     protected void paintComponent(Graphics g) {
         Graphics2D g2D = (Graphics2D) g;
         
-        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-        g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        UIProperties.applyRenderingHints(g2D, renderingQuality);
+        
+        int radius = UIProperties.getTheme().buttonRoundRadius;
         
         if (paintBorder) {
             g2D.setColor(BColor);
             
             if (roundCorners)
-                g2D.drawRoundRect(1, 1, getWidth() - 2, height - 2, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+                g2D.drawRoundRect(1, 1, getWidth() - 2, height - 2, radius, radius);
             else
                 g2D.drawRect(1, 1, getWidth() - 2, height - 2);
         }
@@ -268,7 +271,7 @@ public class ProgressBar extends JComponent implements ComponentSetup {
         g2D.setColor(BGColor);
 
         if (roundCorners)
-            g2D.fillRoundRect(2, 2, getWidth() - 3, height - 3, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+            g2D.fillRoundRect(2, 2, getWidth() - 3, height - 3, radius, radius);
         else
             g2D.fillRect(2, 2, getWidth() - 3, height - 3);
         
@@ -276,66 +279,180 @@ public class ProgressBar extends JComponent implements ComponentSetup {
         g2D.setColor(FGColor);
         
         if (!indeterminate && indeterminatedEnded)
-            paintProgressBar(g2D);
+            paintProgressBar(g2D, radius);
         else
             if (orientation == UIOrientation.HORIZONTAL)
-                paintProgressBarIndeterminatedHorizontal(g2D);
+                paintProgressBarIndeterminatedHorizontal(g2D, radius);
             else
-                paintProgressBarIndeterminatedVertical(g2D);
+                paintProgressBarIndeterminatedVertical(g2D, radius);
     }
     
-    private void paintProgressBar(Graphics2D g2D) {
+    private void paintProgressBar(Graphics2D g2D, int radius) {
         if (orientation == UIOrientation.HORIZONTAL) {
             if (roundCorners)
-                g2D.fillRoundRect(2, 2, oldPosition - 3, height - 3, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+                g2D.fillRoundRect(2, 2, oldPosition - 3, height - 3, radius, radius);
             else
                 g2D.fillRect(2, 2, oldPosition - 3, height - 3);
-            
-            if (oldPosition < position)
-                oldPosition++;
-            else
-                oldPosition--;
         } else {
             if (roundCorners)
-                g2D.fillRoundRect(2, height - (height - 2 - oldPosition), width - 2, height - 2 - oldPosition, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+                g2D.fillRoundRect(2, height - (height - 2 - oldPosition), width - 2, height - 2 - oldPosition, radius, radius);
             else
                 g2D.fillRect(2, height - (height - 2 - oldPosition), width - 2, height - 2 - oldPosition);
-            
-            if (oldPosition < position)
-                oldPosition++;
-            else
-                oldPosition--;
         }
-
-        if (oldPosition == position)
-            progressUpdater.stop();
     }
     
-    private void paintProgressBarIndeterminatedHorizontal(Graphics2D g2D) {
+    private void paintProgressBarIndeterminatedHorizontal(Graphics2D g2D, int radius) {
         if (positionCopy > 0) {
             if (roundCorners)
-                g2D.fillRoundRect(2, 2, positionCopy - 3, height - 3, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+                g2D.fillRoundRect(2, 2, positionCopy - 3, height - 3, radius, radius);
             else
                 g2D.fillRect(2, 2, positionCopy - 3, height - 3);
             
-            positionCopy--;
-            
             return;
         }
         
         if (roundCorners)
-            g2D.fillRoundRect(indeterminatedPosition, 2, currentBarLength, height - 3, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+            g2D.fillRoundRect(indeterminatedPosition, 2, currentBarLength, height - 3, radius, radius);
         else
             g2D.fillRect(indeterminatedPosition, 2, currentBarLength, height - 3);
+    }
+    
+    private void paintProgressBarIndeterminatedVertical(Graphics2D g2D, int radius) {
+        if (positionCopy < height - 2) {
+            if (roundCorners)
+                g2D.fillRoundRect(2, positionCopy, width - 2, height - positionCopy, radius, radius);
+            else
+                g2D.fillRect(2, positionCopy, width - 2, currentBarLength);
+            
+            return;
+        }
         
-        if (animationStarting && !indeterminate) {
-            indeterminatedUpdater.stop();
-            progressUpdater.stop();
+        if (roundCorners)
+            g2D.fillRoundRect(2, indeterminatedPosition, width - 2, currentBarLength, radius, radius);
+        else
+            g2D.fillRect(2, indeterminatedPosition, width - 2, currentBarLength);
+    }
+    
+    /**
+     * Starts the animation if it's not running
+     * 
+     * @param progressStep if true, the animation will advance every 
+     * <code>progressStepInterval</code> ms, otherwise every 
+     * <code>indeterminatedStepInterval</code> ms
+     */
+    private void runAnimation(boolean progressStep) {
+        this.progressStep = progressStep;
+        
+        if (AnimationClock.isRunning(animation))
+            return;
+        
+        if (!VisibilityTracker.isDisplayed(this)) {
+            animationSuspended = true;
+            return;
+        }
+        
+        animationSuspended = false;
+        lastFrameTime = System.nanoTime();
+        pendingFrameTime = 0;
+        AnimationClock.start(animation);
+    }
+    
+    private void suspendAnimation() {
+        if (!AnimationClock.isRunning(animation))
+            return;
+        
+        AnimationClock.stop(animation);
+        animationSuspended = true;
+    }
+    
+    private void resumeAnimation() {
+        if (animationSuspended)
+            runAnimation(progressStep);
+    }
+    
+    /**
+     * Advances the animation as many steps as the elapsed time requires, so 
+     * the speed doesn't depend on how often this component is repainted
+     * 
+     * @param frameTime the frame timestamp in nanoseconds
+     * @return true if the animation hasn't ended
+     * @see AnimationClock
+     */
+    private boolean nextFrame(long frameTime) {
+        pendingFrameTime += (frameTime - lastFrameTime) / 1000000.0;
+        pendingFrameTime = Math.min(pendingFrameTime, MAXIMUM_FRAME_TIME);
+        lastFrameTime = frameTime;
+        
+        boolean running = true;
+        boolean onlyProgress = true;
+        int previousPosition = oldPosition;
+        int stepInterval = progressStep ? progressStepInterval : indeterminatedStepInterval;
+        
+        while (running && pendingFrameTime >= stepInterval) {
+            pendingFrameTime -= stepInterval;
             
-            oldPosition = 0;
+            if (!indeterminate && indeterminatedEnded)
+                running = stepProgressBar();
+            else {
+                onlyProgress = false;
+                
+                if (orientation == UIOrientation.HORIZONTAL)
+                    stepProgressBarIndeterminatedHorizontal();
+                else
+                    stepProgressBarIndeterminatedVertical();
+            }
             
-            if (!progressUpdater.isRunning())
-                progressUpdater.start();
+            stepInterval = progressStep ? progressStepInterval : indeterminatedStepInterval;
+        }
+        
+        if (onlyProgress)
+            repaintProgress(previousPosition, oldPosition);
+        else
+            RepaintScheduler.repaint(this);
+        
+        return running;
+    }
+    
+    /**
+     * Repaints only the region of the bar between two positions, the corner 
+     * radius is included since the bar end is rounded
+     * 
+     * @param from the previous position
+     * @param to the new position
+     */
+    private void repaintProgress(int from, int to) {
+        if (from == to)
+            return;
+        
+        int padding = UIProperties.buttonRoundRadius + 2;
+        int start = Math.min(from, to) - padding;
+        int length = Math.abs(from - to) + padding * 2;
+        
+        if (orientation == UIOrientation.HORIZONTAL)
+            RepaintScheduler.repaint(this, start, 0, length, getHeight());
+        else
+            RepaintScheduler.repaint(this, 0, start, getWidth(), length);
+    }
+    
+    private boolean stepProgressBar() {
+        if (oldPosition < position)
+            oldPosition++;
+        else if (oldPosition > position)
+            oldPosition--;
+        
+        return oldPosition != position;
+    }
+    
+    private void stepProgressBarIndeterminatedHorizontal() {
+        if (positionCopy > 0) {
+            positionCopy--;
+            
+            return;
+        }
+        
+        if (animationStarting && !indeterminate) {
+            oldPosition = 0;
+            progressStep = true;
             
             indeterminatedEnded = true;
             return;
@@ -357,18 +474,12 @@ public class ProgressBar extends JComponent implements ComponentSetup {
                 barWidthAccomplished = true;
                 indeterminatedPosition++;
                 
-                if (!progressUpdater.isRunning())
-                    progressUpdater.start();
-                if (indeterminatedUpdater.isRunning())
-                    indeterminatedUpdater.stop();
+                progressStep = true;
             } else if (indeterminatedPosition < width - 3) {
                 indeterminatedPosition++;
                 currentBarLength--;
                 
-                if (progressUpdater.isRunning())
-                    progressUpdater.stop();
-                if (!indeterminatedUpdater.isRunning())
-                    indeterminatedUpdater.start();
+                progressStep = false;
             } else {
                 animationRunning[0] = false;
                 animationRunning[1] = true;
@@ -390,17 +501,11 @@ public class ProgressBar extends JComponent implements ComponentSetup {
                 barWidthAccomplished = true;
                 indeterminatedPosition--;
                 
-                if (!progressUpdater.isRunning())
-                    progressUpdater.start();
-                if (indeterminatedUpdater.isRunning())
-                    indeterminatedUpdater.stop();
+                progressStep = true;
             } else if (currentBarLength > 0) {
                 currentBarLength--;
                 
-                if (progressUpdater.isRunning())
-                    progressUpdater.stop();
-                if (!indeterminatedUpdater.isRunning())
-                    indeterminatedUpdater.start();
+                progressStep = false;
             } else {
                 animationRunning[0] = true;
                 animationRunning[1] = false;
@@ -409,31 +514,16 @@ public class ProgressBar extends JComponent implements ComponentSetup {
             }
     }
 
-    private void paintProgressBarIndeterminatedVertical(Graphics2D g2D) {
+    private void stepProgressBarIndeterminatedVertical() {
         if (positionCopy < height - 2) {
-            if (roundCorners)
-                g2D.fillRoundRect(2, positionCopy, width - 2, height - positionCopy, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
-            else
-                g2D.fillRect(2, positionCopy, width - 2, currentBarLength);
-            
             positionCopy++;
             
             return;
         }
         
-        if (roundCorners)
-            g2D.fillRoundRect(2, indeterminatedPosition, width - 2, currentBarLength, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
-        else
-            g2D.fillRect(2, indeterminatedPosition, width - 2, currentBarLength);
-        
         if (animationStarting && !indeterminate) {
-            indeterminatedUpdater.stop();
-            progressUpdater.stop();
-            
             oldPosition = height - 2;
-            
-            if (!progressUpdater.isRunning())
-                progressUpdater.start();
+            progressStep = true;
             
             indeterminatedEnded = true;
             return;
@@ -456,17 +546,11 @@ public class ProgressBar extends JComponent implements ComponentSetup {
                 barWidthAccomplished = true;
                 indeterminatedPosition--;
                 
-                if (!progressUpdater.isRunning())
-                    progressUpdater.start();
-                if (indeterminatedUpdater.isRunning())
-                    indeterminatedUpdater.stop();
+                progressStep = true;
             } else if (currentBarLength > 0) {
                 currentBarLength--;
                 
-                if (progressUpdater.isRunning())
-                    progressUpdater.stop();
-                if (!indeterminatedUpdater.isRunning())
-                    indeterminatedUpdater.start();
+                progressStep = false;
             } else {
                 animationRunning[0] = false;
                 animationRunning[1] = true;
@@ -487,18 +571,12 @@ public class ProgressBar extends JComponent implements ComponentSetup {
                 barWidthAccomplished = true;
                 indeterminatedPosition++;
                 
-                if (!progressUpdater.isRunning())
-                    progressUpdater.start();
-                if (indeterminatedUpdater.isRunning())
-                    indeterminatedUpdater.stop();
+                progressStep = true;
             } else if (currentBarLength > 0) {
                 indeterminatedPosition++;
                 currentBarLength--;
                 
-                if (progressUpdater.isRunning())
-                    progressUpdater.stop();
-                if (!indeterminatedUpdater.isRunning())
-                    indeterminatedUpdater.start();
+                progressStep = false;
             } else {
                 animationRunning[0] = true;
                 animationRunning[1] = false;
@@ -557,10 +635,52 @@ public class ProgressBar extends JComponent implements ComponentSetup {
         if (indeterminate)
             return;
         
-        if (!progressUpdater.isRunning())
-            progressUpdater.start();
+        if (!AnimationClock.isRunning(animation) && !animationSuspended)
+            runAnimation(true);
     }
 
+    /**
+     * Creates a listener that shows the progress of an operation in this bar,
+     * for example {@link utils.FileUtilities#copyFile(java.io.File, java.io.File, boolean, utils.ProgressListener)}<br>
+     * The listener can be called from any thread, the bar is only updated
+     * on the event dispatch thread and when its value increases. At most one
+     * update waits on the event queue at a time, it shows the latest value.
+     * If the total is unknown the bar becomes indeterminate.
+     * 
+     * @return the listener
+     */
+    public ProgressListener createProgressListener() {
+        int unknown = Integer.MIN_VALUE + 1;
+        AtomicInteger lastValue = new AtomicInteger(Integer.MIN_VALUE);
+        AtomicBoolean updatePending = new AtomicBoolean(false);
+        
+        return (processed, total) -> {
+            int value = unknown;
+            if (total > 0)
+                value = minimumValue + (int) ((maximumValue - minimumValue) * ((double) Math.min(processed, total) / total));
+            
+            int previous;
+            do {
+                previous = lastValue.get();
+                if (value <= previous)
+                    return;
+            } while (!lastValue.compareAndSet(previous, value));
+            
+            if (!updatePending.compareAndSet(false, true))
+                return;
+            
+            SwingUtilities.invokeLater(() -> {
+                updatePending.set(false);
+                
+                int latest = lastValue.get();
+                if (latest == unknown)
+                    setIndeterminate(true);
+                else
+                    setValue(latest);
+            });
+        };
+    }
+    
     public void setIndeterminate(boolean indeterminate) {
         this.indeterminate = indeterminate;
         
@@ -570,8 +690,7 @@ public class ProgressBar extends JComponent implements ComponentSetup {
         if (indeterminate) {
             positionCopy = position;
             indeterminatedEnded = false;
-            if (!indeterminatedUpdater.isRunning())
-                indeterminatedUpdater.start();
+            runAnimation(false);
         }
     }
 
@@ -625,4 +744,23 @@ public class ProgressBar extends JComponent implements ComponentSetup {
     public void setMaximumValue() {
         setValue(maximumValue);
     }
+    
+    /**
+     * Overrides the rendering profile for this component
+     * 
+     * @param renderingQuality the profile, null to use the global profile
+     * @see UIProperties#setRenderingQuality(ui.enums.RenderingQuality) 
+     */
+    public void setRenderingQuality(RenderingQuality renderingQuality) {
+        this.renderingQuality = renderingQuality;
+        RepaintScheduler.repaint(this);
+    }
+    
+    /**
+     * @return the rendering profile override for this component, null if
+     * the global profile is used
+     */
+    public RenderingQuality getRenderingQuality() {
+        return renderingQuality;
+    }
 }
@@ -0,0 +1,147 @@
+package ui;
+
+import java.awt.Rectangle;
+import java.awt.Window;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Collects repaint requests and flushes them once the current event is
+ * handled<br>
+ * Dirty rectangles are grouped by the top-level window of each component
+ * and merged per component, so several changes made while handling the
+ * same event, or during the same {@link AnimationClock} frame, result in a
+ * single repaint of the area that actually changed.
+ * 
+ * @author cristopher
+ */
+public class RepaintScheduler {
+    /**
+     * If false, repaint requests are sent to Swing immediately
+     */
+    private static boolean enabled = true;
+    
+    private static HashMap<Window, LinkedHashMap<JComponent, Rectangle>> dirtyRegions = new HashMap<>();
+    
+    /**
+     * True while a flush is waiting in the event queue
+     */
+    private static boolean flushScheduled = false;
+    
+    private RepaintScheduler() { }
+    
+    /**
+     * @return true if repaints are being coalesced
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Turns on or off repaint coalescing, turning it off will flush every
+     * pending repaint
+     * 
+     * @param enabled if false, repaints will be requested immediately
+     */
+    public static void setEnabled(boolean enabled) {
+        RepaintScheduler.enabled = enabled;
+        
+        if (!enabled)
+            SwingUtilities.invokeLater(RepaintScheduler::flush);
+    }
+    
+    /**
+     * Schedules a repaint of the whole component
+     * 
+     * @param c the component
+     */
+    public static void repaint(JComponent c) {
+        if (c.getWidth() <= 0 || c.getHeight() <= 0) {
+            c.repaint();
+            return;
+        }
+        
+        repaint(c, 0, 0, c.getWidth(), c.getHeight());
+    }
+    
+    /**
+     * Schedules a repaint of a region of a component, this method can be
+     * called from any thread
+     * 
+     * @param c the component
+     * @param x the x coordinate of the region
+     * @param y the y coordinate of the region
+     * @param width the width of the region
+     * @param height the height of the region
+     */
+    public static void repaint(JComponent c, int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0)
+            return;
+        
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> repaint(c, x, y, width, height));
+            return;
+        }
+        
+        Window window = SwingUtilities.getWindowAncestor(c);
+        
+        if (!enabled || window == null || !c.isShowing()) {
+            c.repaint(x, y, width, height);
+            return;
+        }
+        
+        LinkedHashMap<JComponent, Rectangle> regions = dirtyRegions.get(window);
+        if (regions == null) {
+            regions = new LinkedHashMap<>();
+            dirtyRegions.put(window, regions);
+        }
+        
+        Rectangle region = regions.get(c);
+        if (region == null)
+            regions.put(c, new Rectangle(x, y, width, height));
+        else
+            region.add(new Rectangle(x, y, width, height));
+        
+        if (!flushScheduled) {
+            flushScheduled = true;
+            SwingUtilities.invokeLater(RepaintScheduler::flush);
+        }
+    }
+    
+    /**
+     * Sends every pending repaint to Swing, this method must be called from
+     * the EDT
+     */
+    public static void flush() {
+        flushScheduled = false;
+        
+        if (dirtyRegions.isEmpty())
+            return;
+        
+        HashMap<Window, LinkedHashMap<JComponent, Rectangle>> regions = dirtyRegions;
+        dirtyRegions = new HashMap<>();
+        
+        for (LinkedHashMap<JComponent, Rectangle> windowRegions : regions.values())
+            for (Map.Entry<JComponent, Rectangle> e : windowRegions.entrySet()) {
+                Rectangle r = e.getValue();
+                e.getKey().repaint(r.x, r.y, r.width, r.height);
+            }
+    }
+    
+    /**
+     * This method must be called from the EDT
+     * 
+     * @return the amount of components with pending repaints
+     */
+    public static int getPendingCount() {
+        int count = 0;
+        
+        for (LinkedHashMap<JComponent, Rectangle> regions : dirtyRegions.values())
+            count += regions.size();
+        
+        return count;
+    }
+}
@@ -82,8 +82,8 @@ public class ScrollPane extends JScrollPane implements ComponentSetup {
         if (viewportViewComponent instanceof ComponentSetup)
             ((ComponentSetup) viewportViewComponent).updateUISize();
         
-        verticalScrollBar.setUI(new ColorScrollBarUI());
-        horizontalScrollBar.setUI(new ColorScrollBarUI());
+        ColorScrollBarUI.update(verticalScrollBar);
+        ColorScrollBarUI.update(horizontalScrollBar);
         
         if (enableAutomaticVerticalUnitAssignment)
             verticalScrollBar.setUnitIncrement((int) (verticalScrollUnitIncrement * UIProperties.getUiScale()));
@@ -105,8 +105,8 @@ public class ScrollPane extends JScrollPane implements ComponentSetup {
         
         setBackground(UIProperties.APP_BG_COLOR);
 
-        verticalScrollBar.setUI(new ColorScrollBarUI());
-        verticalScrollBar.setUI(new ColorScrollBarUI());
+        ColorScrollBarUI.update(verticalScrollBar);
+        ColorScrollBarUI.update(horizontalScrollBar);
     }
 
     @Override
@@ -144,8 +144,8 @@ public class SelectionPanel extends JScrollPane implements ComponentSetup {
     public void updateUISize() {
         setPreferredSize(new Dimension(width, height));
         
-        getVerticalScrollBar().setUI(new ColorScrollBarUI());
-        getHorizontalScrollBar().setUI(new ColorScrollBarUI());
+        ColorScrollBarUI.update(getVerticalScrollBar());
+        ColorScrollBarUI.update(getHorizontalScrollBar());
         
         getVerticalScrollBar().setUnitIncrement((int) (22 * UIProperties.uiScale));
         getHorizontalScrollBar().setUnitIncrement((int) (22 * UIProperties.uiScale));
@@ -162,8 +162,8 @@ public class SelectionPanel extends JScrollPane implements ComponentSetup {
     public void updateUITheme() {
         setBackground(UIProperties.APP_BGA);
         
-        getVerticalScrollBar().setUI(new ColorScrollBarUI());
-        getHorizontalScrollBar().setUI(new ColorScrollBarUI());
+        ColorScrollBarUI.update(getVerticalScrollBar());
+        ColorScrollBarUI.update(getHorizontalScrollBar());
         
         viewContainer.updateUITheme();
     }
@@ -5,12 +5,12 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.text.JTextComponent;
+import ui.enums.RenderingQuality;
 import ui.enums.UIOrientation;
 
 /**
@@ -27,6 +27,12 @@ public class Slider extends JComponent implements ComponentSetup {
     protected boolean appTheme = false;
     protected boolean appColor = true;
     
+    /**
+     * Rendering profile for this component, if null the profile set in 
+     * {@link UIProperties} is used
+     */
+    protected RenderingQuality renderingQuality = null;
+    
     /**
      * Background color
      */
@@ -153,7 +159,7 @@ public class Slider extends JComponent implements ComponentSetup {
         if (appTheme)
             FGColor = UIProperties.APP_FG;
         
-        repaint();
+        RepaintScheduler.repaint(this);
     }
 
     @Override
@@ -161,7 +167,7 @@ public class Slider extends JComponent implements ComponentSetup {
         if (appColor)
             FGColor = UIProperties.APP_BG_COLOR;
         
-        repaint();
+        RepaintScheduler.repaint(this);
     }
 
     @Override
@@ -214,17 +220,18 @@ public class Slider extends JComponent implements ComponentSetup {
     protected void paintComponent(Graphics g) {
         Graphics2D g2D = (Graphics2D) g;
         
-        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-        g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        UIProperties.applyRenderingHints(g2D, renderingQuality);
+        
+        Theme theme = UIProperties.getTheme();
+        int radius = theme.sliderCircleRadius;
         
         g2D.setColor(BGColor);
         g2D.fillRect(0, 0, width, height);
         
         int trackHalf = ((orientation == UIOrientation.HORIZONTAL) ? height : width) / 2;
         
-        g2D.setColor(UIProperties.APP_FG);
-        g2D.setStroke(new BasicStroke(2 * UIProperties.uiScale));
+        g2D.setColor(theme.fg);
+        g2D.setStroke(new BasicStroke(2 * theme.uiScale));
         if (orientation == UIOrientation.HORIZONTAL)
             g2D.drawLine(4, trackHalf, width - 4, trackHalf);
         else
@@ -233,15 +240,16 @@ public class Slider extends JComponent implements ComponentSetup {
         
         g2D.setColor(FGColor);
         if (orientation == UIOrientation.HORIZONTAL)
-            g2D.fillOval(position, trackHalf - UIProperties.sliderCircleRadius, UIProperties.sliderCircleRadius * 2, UIProperties.sliderCircleRadius * 2);
+            g2D.fillOval(position, trackHalf - radius, radius * 2, radius * 2);
         else
-            g2D.fillOval(trackHalf - UIProperties.sliderCircleRadius, position, UIProperties.sliderCircleRadius * 2, UIProperties.sliderCircleRadius * 2);
+            g2D.fillOval(trackHalf - radius, position, radius * 2, radius * 2);
     }
     
     private void moveCircle(int coord, boolean focus, boolean overwriteValue) {
         if (focus)
             requestFocus();
-
+        
+        int previousPosition = position;
         position = coord - UIProperties.sliderCircleRadius;
         
         if (orientation == UIOrientation.HORIZONTAL) {
@@ -289,8 +297,27 @@ public class Slider extends JComponent implements ComponentSetup {
                     ((NumberSelector) c).setValue(value);
                 else
                     throw new UnsupportedOperationException("Unsuported JComponent");
-
-        repaint();
+        
+        if (previousPosition != position) {
+            repaintCircle(previousPosition);
+            repaintCircle(position);
+        }
+    }
+    
+    /**
+     * Repaints the region covered by the drag-able circle
+     * 
+     * @param circlePosition the circle position
+     */
+    private void repaintCircle(int circlePosition) {
+        int trackHalf = ((orientation == UIOrientation.HORIZONTAL) ? height : width) / 2;
+        int start = trackHalf - UIProperties.sliderCircleRadius - 1;
+        int diameter = UIProperties.sliderCircleRadius * 2 + 2;
+        
+        if (orientation == UIOrientation.HORIZONTAL)
+            RepaintScheduler.repaint(this, circlePosition - 1, start, diameter, diameter);
+        else
+            RepaintScheduler.repaint(this, start, circlePosition - 1, diameter, diameter);
     }
 
     /**
@@ -324,4 +351,23 @@ public class Slider extends JComponent implements ComponentSetup {
     public void setComponentsToUpdate(JComponent ... componentsToUpdate) {
         this.componentsToUpdate = componentsToUpdate;
     }
+    
+    /**
+     * Overrides the rendering profile for this component
+     * 
+     * @param renderingQuality the profile, null to use the global profile
+     * @see UIProperties#setRenderingQuality(ui.enums.RenderingQuality) 
+     */
+    public void setRenderingQuality(RenderingQuality renderingQuality) {
+        this.renderingQuality = renderingQuality;
+        RepaintScheduler.repaint(this);
+    }
+    
+    /**
+     * @return the rendering profile override for this component, null if
+     * the global profile is used
+     */
+    public RenderingQuality getRenderingQuality() {
+        return renderingQuality;
+    }
 }
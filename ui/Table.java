@@ -5,7 +5,6 @@ import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
-import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Line2D;
@@ -15,6 +14,7 @@ import java.util.Arrays;
 import javax.swing.JComponent;
 import ui.enums.ImageButtonArrangement;
 import ui.enums.LabelType;
+import ui.enums.RenderingQuality;
 import ui.enums.TableCellComponent;
 import ui.enums.TextAlignment;
 import ui.enums.UIAlignment;
@@ -62,6 +62,12 @@ public class Table extends Panel {
      */
     protected int spaceBetween = 1;
     
+    /**
+     * Rendering profile for this component, if null the profile set in 
+     * {@link UIProperties} is used
+     */
+    protected RenderingQuality renderingQuality = null;
+    
     protected boolean allowUserToAddColumns = true;
     protected boolean allowUserToAddRows = true;
     
@@ -226,9 +232,7 @@ public class Table extends Panel {
         
         Graphics2D g2D = (Graphics2D) g;
         
-        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-        g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        UIProperties.applyRenderingHints(g2D, renderingQuality);
         
         g2D.setStroke(new BasicStroke(borderWidth));
         
@@ -237,14 +241,16 @@ public class Table extends Panel {
         double initialX = columnPlaceholders.get(0).getX() - halfSpace;
         double initialY = columnPlaceholders.get(0).getY() + (allowUserSwapColumns ? swapComponentLength : 0);
         
+        Theme theme = UIProperties.getTheme();
+        
         if (accentColorHead) {
-            g2D.setColor(UIProperties.APP_BGA_COLOR);
+            g2D.setColor(theme.bgaColor);
             g2D.fill(new Rectangle2D.Double(initialX, initialY, preferredSize.width - borderWidth - initialX, rowPlaceholders.get(0).getPreferredSize().height + spaceBetween));
         }
         
         super.paintChildren(g);
         
-        g2D.setColor(UIProperties.APP_FG);
+        g2D.setColor(theme.fg);
         
         for (int j = 1; j < columns; j++) {
             int x = columnPlaceholders.get(j).getX();
@@ -579,7 +585,7 @@ public class Table extends Panel {
                 ((TextField) c).setVisibleBackground(this.accentColorHead);
             }
         }
-        repaint();
+        RepaintScheduler.repaint(this);
     }
 
     /**
@@ -654,7 +660,7 @@ public class Table extends Panel {
             columnPlaceholders.get(i).index = i;
         
         revalidate();
-        repaint();
+        RepaintScheduler.repaint(this);
         updateUISize();
     }
    
@@ -708,7 +714,7 @@ public class Table extends Panel {
             columnPlaceholders.get(i).index = i;
         
         revalidate();
-        repaint();
+        RepaintScheduler.repaint(this);
         updateUISize();
     }
     
@@ -753,7 +759,7 @@ public class Table extends Panel {
             rowPlaceholders.get(j).index = j;
         
         revalidate();
-        repaint();
+        RepaintScheduler.repaint(this);
         updateUISize();
     }
     
@@ -801,7 +807,7 @@ public class Table extends Panel {
             rowPlaceholders.get(j).index = j;
         
         revalidate();
-        repaint();
+        RepaintScheduler.repaint(this);
         updateUISize();
     }
     
@@ -845,7 +851,7 @@ public class Table extends Panel {
             updateAlignComponent(columnPlaceholders.get(newIndex + 1), columnPlaceholder, columnPlaceholder);
         
         revalidate();
-        repaint();
+        RepaintScheduler.repaint(this);
     }
     
     private class UIPlaceholder extends JComponent implements ComponentSetup {
@@ -875,7 +881,7 @@ public class Table extends Panel {
                 @Override
                 public void mouseEntered(MouseEvent e) {
                     paintAsDraggable = allowUserSwapColumns && columnType || allowUserSwapRows && !columnType;
-                    repaint();
+                    RepaintScheduler.repaint(UIPlaceholder.this);
                 }
 
                 @Override
@@ -884,7 +890,7 @@ public class Table extends Panel {
                         return;
                     
                     paintAsDraggable = false;
-                    repaint();
+                    RepaintScheduler.repaint(UIPlaceholder.this);
                 }
             });
             
@@ -922,14 +928,14 @@ public class Table extends Panel {
                     }
                     
                     
-                    container.repaint();
+                    RepaintScheduler.repaint(container);
                 }
 
                 @Override
                 public void mouseReleased(MouseEvent e) {
                     dragging = false;
                     paintAsDraggable = false;
-                    repaint();
+                    RepaintScheduler.repaint(UIPlaceholder.this);
                 }
             });
             
@@ -1006,12 +1012,13 @@ public class Table extends Panel {
         @Override
         protected void paintComponent(Graphics g) {
             Dimension preferredDimension = getPreferredSize();
+            Theme theme = UIProperties.getTheme();
             
             g.setColor(getBackground());
             g.fillRect(0, 0, preferredDimension.width, preferredDimension.height);
             
             if (columnType && paintAsDraggable) {
-                g.setColor(appTheme ? UIProperties.APP_FG_COLOR : UIProperties.APP_BG);
+                g.setColor(appTheme ? theme.fgColor : theme.bg);
                 
                 int halfSwap = swapComponentLength / 2;
                 int margin = (int) (preferredDimension.width * 0.2);
@@ -1019,7 +1026,7 @@ public class Table extends Panel {
                 g.drawLine(margin, halfSwap, preferredDimension.width - margin, halfSwap);
                 g.drawLine(margin, halfSwap + 2, preferredDimension.width - margin, halfSwap + 2);
             } else if (!columnType && paintAsDraggable) {
-                g.setColor(appTheme ? UIProperties.APP_FG_COLOR : UIProperties.APP_BG);
+                g.setColor(appTheme ? theme.fgColor : theme.bg);
                 
                 int halfSwap = swapComponentLength / 2;
                 int margin = (int) (preferredDimension.height * 0.2);
@@ -1070,4 +1077,23 @@ public class Table extends Panel {
             return button;
         }
     }
+    
+    /**
+     * Overrides the rendering profile for this component
+     * 
+     * @param renderingQuality the profile, null to use the global profile
+     * @see UIProperties#setRenderingQuality(ui.enums.RenderingQuality) 
+     */
+    public void setRenderingQuality(RenderingQuality renderingQuality) {
+        this.renderingQuality = renderingQuality;
+        RepaintScheduler.repaint(this);
+    }
+    
+    /**
+     * @return the rendering profile override for this component, null if
+     * the global profile is used
+     */
+    public RenderingQuality getRenderingQuality() {
+        return renderingQuality;
+    }
 }
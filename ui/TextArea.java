@@ -52,8 +52,8 @@ public class TextArea extends JScrollPane implements ComponentSetup {
     public void updateUISize() {
         setPreferredSize(new Dimension(width, height));
         
-        getVerticalScrollBar().setUI(new ColorScrollBarUI());
-        getHorizontalScrollBar().setUI(new ColorScrollBarUI());
+        ColorScrollBarUI.update(getVerticalScrollBar());
+        ColorScrollBarUI.update(getHorizontalScrollBar());
     }
 
     @Override
@@ -68,8 +68,8 @@ public class TextArea extends JScrollPane implements ComponentSetup {
     public void updateUITheme() {
         setBackground(UIProperties.APP_BGA);
         
-        getVerticalScrollBar().setUI(new ColorScrollBarUI());
-        getHorizontalScrollBar().setUI(new ColorScrollBarUI());
+        ColorScrollBarUI.update(getVerticalScrollBar());
+        ColorScrollBarUI.update(getHorizontalScrollBar());
         
         textArea.setBackground(UIProperties.APP_BGA);
         textArea.setForeground(UIProperties.APP_FG);
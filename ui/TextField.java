@@ -4,7 +4,6 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
 import java.awt.event.MouseAdapter;
@@ -286,15 +285,15 @@ public class TextField extends JTextField implements ComponentSetup {
     protected void paintComponent(Graphics g) {
         Graphics2D g2D = (Graphics2D) g;
         
-        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-        g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        UIProperties.applyRenderingHints(g2D);
+        
+        int radius = UIProperties.getTheme().buttonRoundRadius;
         
         if (paintBorder) {
             g2D.setColor(getForeground());
             
             if (roundCorners)
-                g2D.drawRoundRect(1, 1, getWidth() - 2, getHeight() - 2, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+                g2D.drawRoundRect(1, 1, getWidth() - 2, getHeight() - 2, radius, radius);
             else
                 g2D.drawRect(1, 1, getWidth() - 2, getHeight() - 2);
         }
@@ -303,12 +302,12 @@ public class TextField extends JTextField implements ComponentSetup {
 
         if (paintBorder) {
             if (roundCorners)
-                g2D.fillRoundRect(2, 2, getWidth() - 3, getHeight() - 3, UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+                g2D.fillRoundRect(2, 2, getWidth() - 3, getHeight() - 3, radius, radius);
             else
                 g2D.fillRect(2, 2, getWidth() - 3, getHeight() - 3);
         } else {
             if (roundCorners)
-                g2D.fillRoundRect(0, 0, getWidth(), getHeight(), UIProperties.buttonRoundRadius, UIProperties.buttonRoundRadius);
+                g2D.fillRoundRect(0, 0, getWidth(), getHeight(), radius, radius);
             else
                 g2D.fillRect(0, 0, getWidth(), getHeight());
         }
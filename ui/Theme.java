@@ -0,0 +1,123 @@
+package ui;
+
+import java.awt.Color;
+import java.awt.Font;
+
+/**
+ * Immutable snapshot of the UI properties<br>
+ * Every time colors, fonts or sizes change in {@link UIProperties} a new
+ * snapshot is published with a greater version. Reading the snapshot
+ * doesn't require locks and a theme can never be seen half updated,
+ * components can compare versions to know if anything changed.
+ * 
+ * @author cristopher
+ * @see UIProperties#getTheme()
+ */
+public final class Theme {
+    /**
+     * Version of this snapshot, newer snapshots have greater versions
+     */
+    public final long version;
+    
+    public final boolean lightTheme;
+    public final boolean accentColors;
+    
+    /**
+     * @see UIProperties#APP_BG
+     */
+    public final Color bg;
+    /**
+     * @see UIProperties#APP_BGA
+     */
+    public final Color bga;
+    /**
+     * @see UIProperties#APP_FG
+     */
+    public final Color fg;
+    /**
+     * @see UIProperties#APP_FGW
+     */
+    public final Color fgw;
+    /**
+     * @see UIProperties#APP_BG_COLOR
+     */
+    public final Color bgColor;
+    /**
+     * @see UIProperties#APP_BGA_COLOR
+     */
+    public final Color bgaColor;
+    /**
+     * @see UIProperties#APP_FG_COLOR
+     */
+    public final Color fgColor;
+    
+    public final Font font;
+    public final Font monospacedFont;
+    public final Font boldFont;
+    public final Font subtitleFont;
+    public final Font titleFont;
+    public final Font boldTitleFont;
+    
+    public final float uiScale;
+    public final int buttonRoundRadius;
+    public final int checkboxSideLength;
+    public final int sliderCircleRadius;
+    public final int scrollbarWidth;
+    
+    /**
+     * Copies the current values of {@link UIProperties}
+     * 
+     * @param version the snapshot version
+     */
+    Theme(long version) {
+        this(version, UIProperties.isLightThemeActive(), false);
+    }
+    
+    /**
+     * Creates a snapshot of the current values of {@link UIProperties} 
+     * with the palette of the light or dark theme
+     * 
+     * @param version the snapshot version
+     * @param lightTheme if true, the light palette is used
+     * @param derivePalette if false, the palette is copied as it is, 
+     * otherwise it's derived from <code>lightTheme</code> as 
+     * {@link UIProperties#setLightThemeActive(boolean)} would do it
+     */
+    Theme(long version, boolean lightTheme, boolean derivePalette) {
+        this.version = version;
+        this.lightTheme = lightTheme;
+        
+        accentColors = UIProperties.usesAccentColors();
+        
+        if (derivePalette) {
+            bg = lightTheme ? UIProperties.LIGHT_UI_BG : UIProperties.DARK_UI_BG;
+            bga = lightTheme ? UIProperties.LIGHT_UI_BGA : UIProperties.DARK_UI_BGA;
+            fg = lightTheme ? UIProperties.LIGHT_UI_FG : UIProperties.DARK_UI_FG;
+            fgw = lightTheme ? UIProperties.LIGHT_UI_WARNING_FG : UIProperties.DARK_UI_WARNING_FG;
+            bgColor = accentColors ? UIProperties.APP_BG_COLOR : fg;
+            bgaColor = accentColors ? UIProperties.APP_BGA_COLOR : fg;
+            fgColor = accentColors ? UIProperties.APP_FG_COLOR : bg;
+        } else {
+            bg = UIProperties.APP_BG;
+            bga = UIProperties.APP_BGA;
+            fg = UIProperties.APP_FG;
+            fgw = UIProperties.APP_FGW;
+            bgColor = UIProperties.APP_BG_COLOR;
+            bgaColor = UIProperties.APP_BGA_COLOR;
+            fgColor = UIProperties.APP_FG_COLOR;
+        }
+        
+        font = UIProperties.APP_FONT;
+        monospacedFont = UIProperties.APP_MONOSPACED_FONT;
+        boldFont = UIProperties.APP_BOLD_FONT;
+        subtitleFont = UIProperties.APP_SUBTITLE_FONT;
+        titleFont = UIProperties.APP_TITLE_FONT;
+        boldTitleFont = UIProperties.APP_BOLD_TITLE_FONT;
+        
+        uiScale = UIProperties.uiScale;
+        buttonRoundRadius = UIProperties.buttonRoundRadius;
+        checkboxSideLength = UIProperties.checkboxSideLength;
+        sliderCircleRadius = UIProperties.sliderCircleRadius;
+        scrollbarWidth = UIProperties.scrollbarWidth;
+    }
+}
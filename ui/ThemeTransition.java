@@ -0,0 +1,133 @@
+package ui;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.SwingUtilities;
+
+/**
+ * Switches between light and dark themes without stalling the UI<br>
+ * The resources the next theme needs (colors, scaled icons and button
+ * backgrounds) are prepared on a background thread, once they are ready
+ * the theme is applied on the EDT, where components find everything cached.
+ * 
+ * @author cristopher
+ * @see UIProperties#setLightThemeActive(boolean)
+ */
+public class ThemeTransition {
+    private static final ExecutorService preparationThread = Executors.newSingleThreadExecutor((r) -> {
+        Thread t = new Thread(r, "ThemeTransition");
+        t.setDaemon(true);
+        
+        return t;
+    });
+    
+    private static long lastPreparationTime = 0;
+    private static long lastSwapTime = 0;
+    
+    private ThemeTransition() { }
+    
+    /**
+     * Changes the active palette
+     * 
+     * @param onFinish optional task to run on the EDT once the theme was
+     * applied, it can be null
+     * @param roots the windows or components to update, usually the main
+     * {@link Window} and any open {@link Dialog}. They must not be subscribed
+     * to {@link utils.PreferenceChangeBus}
+     * @see ThemeTransition#setLightThemeActive(boolean, java.lang.Runnable, ui.ComponentSetup...)
+     */
+    public static void toggleActiveTheme(Runnable onFinish, ComponentSetup ... roots) {
+        setLightThemeActive(!UIProperties.isLightThemeActive(), onFinish, roots);
+    }
+    
+    /**
+     * Sets light or dark theme, this replaces calling
+     * {@link UIProperties#setLightThemeActive(boolean)} followed by
+     * updateUITheme() and updateUIColors() on every root.<br>
+     * This method must be called from the EDT and returns immediately.<br><br>
+     * 
+     * <b>Note:</b> applying the theme publishes {@link utils.LibUtilities.Preferences#APPEARANCE}
+     * to {@link utils.PreferenceChangeBus}, so components subscribed to it are
+     * already updated. Roots must not be subscribers, otherwise they're
+     * updated twice
+     * 
+     * @param lightTheme if false, dark palette will be set
+     * @param onFinish optional task to run on the EDT once the theme was
+     * applied, it can be null
+     * @param roots the windows or components to update, usually the main
+     * {@link Window} and any open {@link Dialog}. They must not be subscribed
+     * to {@link utils.PreferenceChangeBus}
+     */
+    public static void setLightThemeActive(boolean lightTheme, Runnable onFinish, ComponentSetup ... roots) {
+        long start = System.nanoTime();
+        
+        Theme next = UIProperties.previewTheme(lightTheme);
+        ArrayList<Runnable> tasks = new ArrayList<>();
+        
+        for (ComponentSetup root : roots)
+            if (root instanceof Component)
+                collectTasks((Component) root, next, tasks);
+        
+        long collectTime = System.nanoTime() - start;
+        
+        preparationThread.execute(() -> {
+            long preparationStart = System.nanoTime();
+            
+            for (Runnable task : tasks)
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    ex.printStackTrace();
+                }
+            
+            long preparationTime = System.nanoTime() - preparationStart;
+            
+            SwingUtilities.invokeLater(() -> {
+                long swapStart = System.nanoTime();
+                
+                UIProperties.setLightThemeActive(lightTheme);
+                
+                for (ComponentSetup root : roots) {
+                    root.updateUITheme();
+                    root.updateUIColors();
+                }
+                
+                lastPreparationTime = preparationTime;
+                lastSwapTime = collectTime + System.nanoTime() - swapStart;
+                
+                if (onFinish != null)
+                    onFinish.run();
+            });
+        });
+    }
+    
+    private static void collectTasks(Component c, Theme next, ArrayList<Runnable> tasks) {
+        if (c instanceof ColorButton) {
+            Runnable task = ((ColorButton) c).prepareTheme(next);
+            if (task != null)
+                tasks.add(task);
+        }
+        
+        if (c instanceof Container)
+            for (Component child : ((Container) c).getComponents())
+                collectTasks(child, next, tasks);
+    }
+    
+    /**
+     * @return the time in nanoseconds the last transition spent preparing
+     * resources on the background thread
+     */
+    public static long getLastPreparationTime() {
+        return lastPreparationTime;
+    }
+    
+    /**
+     * @return the time in nanoseconds the last transition spent on the EDT
+     */
+    public static long getLastSwapTime() {
+        return lastSwapTime;
+    }
+}
@@ -4,18 +4,24 @@ import ui.enums.UIAlignment;
 import ui.enums.TextAlignment;
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.Graphics2D;
 import java.awt.GraphicsEnvironment;
+import java.awt.Insets;
+import java.awt.RenderingHints;
 import java.awt.event.KeyEvent;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.InputMap;
-import javax.swing.JFrame;
-import javax.swing.JPanel;
 import javax.swing.KeyStroke;
 import javax.swing.SpringLayout;
 import javax.swing.SwingConstants;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.text.DefaultEditorKit;
+import ui.enums.RenderingQuality;
 import utils.LibUtilities;
+import utils.LibUtilities.Preferences;
+import utils.PreferenceChangeBus;
+import utils.TextMetrics;
 
 /**
  * This class contains properties (colors and fonts) for UI<br>
@@ -35,7 +41,30 @@ public class UIProperties {
         return properties;
     }
     
-    public final static int TITLE_BAR_HEIGHT;
+    /**
+     * Usual height of the window decorations on this system, used until a
+     * decorated window is displayed and the real height is measured
+     */
+    private static final int DEFAULT_TITLE_BAR_HEIGHT = LibUtilities.IS_MACOS ? 28 : LibUtilities.IS_UNIX_LIKE ? 37 : 39;
+    
+    /**
+     * Height of the window decorations<br>
+     * It used to be measured when this class was loaded, now it's an estimate
+     * for the system until the first decorated {@link Window} or
+     * {@link Dialog} is displayed, then it holds the measured height
+     * @deprecated use {@link UIProperties#getTitleBarHeight()}
+     */
+    @Deprecated
+    public static int TITLE_BAR_HEIGHT = DEFAULT_TITLE_BAR_HEIGHT;
+    
+    private static int titleBarHeight = DEFAULT_TITLE_BAR_HEIGHT;
+    private static boolean titleBarMeasured = false;
+    
+    /**
+     * Latest published snapshot, it's never assigned partially built
+     */
+    private static volatile Theme theme;
+    private static long themeVersion;
     
     /**
      * Initializes UI look and feel
@@ -47,18 +76,6 @@ public class UIProperties {
             System.exit(1);
         }
         
-        JFrame f = new JFrame();
-        f.setSize(100, 100);
-
-        JPanel p = new JPanel();
-        f.add(p);
-        f.setVisible(true);
-
-        TITLE_BAR_HEIGHT = f.getHeight() - p.getSize().height;
-
-        f.setVisible(false);
-        f.dispose();
-        
         if (LibUtilities.SYSTEM_NAME.startsWith("Mac")) {
             InputMap inputMap = (InputMap) UIManager.get("TextField.focusInputMap");
             inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_A, KeyEvent.META_DOWN_MASK), DefaultEditorKit.selectAllAction);
@@ -73,10 +90,36 @@ public class UIProperties {
             inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_X, KeyEvent.META_DOWN_MASK), DefaultEditorKit.cutAction);
         }
         
-        initUIAccentColors();
-        initFonts();
+    }
+    
+    /**
+     * Computes the window decorations height from a displayable window, 
+     * the value is only computed once
+     * 
+     * @param w a decorated window with a native peer
+     * @return true if the height was computed with this window
+     */
+    static boolean updateTitleBarHeight(java.awt.Window w) {
+        if (titleBarMeasured || !w.isDisplayable())
+            return false;
         
-        System.out.println("[INFO] UIProperties initialized!");
+        Insets insets = w.getInsets();
+        if (insets.top + insets.bottom <= 0)
+            return false;
+        
+        titleBarHeight = insets.top + insets.bottom;
+        titleBarMeasured = true;
+        TITLE_BAR_HEIGHT = titleBarHeight;
+        
+        return true;
+    }
+    
+    /**
+     * @return the height of the window decorations, an estimate for the
+     * system if no decorated window has been displayed yet
+     */
+    public static int getTitleBarHeight() {
+        return titleBarHeight;
     }
     
     /**
@@ -85,12 +128,15 @@ public class UIProperties {
      * @throws IllegalStateException if LibUtilities has been not initialized
      */
     public static void initFonts() {
-        APP_FONT = new Font(LibUtilities.getFontName(), Font.PLAIN, (int) (standardFontSize * uiScale));
-        APP_MONOSPACED_FONT = new Font(Font.MONOSPACED, Font.PLAIN, (int) (standardFontSize * uiScale));
-        APP_BOLD_FONT = new Font(LibUtilities.getFontName(), Font.BOLD, (int) (standardFontSize * uiScale));
-        APP_SUBTITLE_FONT = new Font(LibUtilities.getFontName(), Font.BOLD, (int) (subtitleFontSize * uiScale));
-        APP_BOLD_TITLE_FONT = new Font(LibUtilities.getFontName(), Font.BOLD, (int) (titleFontSize * uiScale));
-        APP_TITLE_FONT = new Font(LibUtilities.getFontName(), Font.PLAIN, (int) (titleFontSize * uiScale));
+        APP_FONT = FontFactory.getFont(LibUtilities.getFontName(), Font.PLAIN, standardFontSize);
+        APP_MONOSPACED_FONT = FontFactory.getFont(Font.MONOSPACED, Font.PLAIN, standardFontSize);
+        APP_BOLD_FONT = FontFactory.getFont(LibUtilities.getFontName(), Font.BOLD, standardFontSize);
+        APP_SUBTITLE_FONT = FontFactory.getFont(LibUtilities.getFontName(), Font.BOLD, subtitleFontSize);
+        APP_BOLD_TITLE_FONT = FontFactory.getFont(LibUtilities.getFontName(), Font.BOLD, titleFontSize);
+        APP_TITLE_FONT = FontFactory.getFont(LibUtilities.getFontName(), Font.PLAIN, titleFontSize);
+        
+        TextMetrics.clear();
+        publishTheme();
     }
     
     /**
@@ -112,6 +158,8 @@ public class UIProperties {
             APP_BGA_COLOR = OLD_APP_BGA_COLOR;
             APP_FG_COLOR = OLD_APP_FG_COLOR;
         }
+        
+        publishTheme();
     }
     
     public static final Color DIM_TEXT_COLOR = new Color(120, 120, 120);
@@ -173,7 +221,24 @@ public class UIProperties {
     protected static float uiScale = 1;
     
     
-    public static String [] AVAILABLE_FONTS = GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames();
+    /**
+     * Installed font families, this is empty until font enumeration ends
+     * @deprecated use {@link UIProperties#getAvailableFonts()}
+     */
+    @Deprecated
+    public static String [] AVAILABLE_FONTS = new String[0];
+    
+    /**
+     * Installed font families, font enumeration can take a while so it's
+     * done on a background thread
+     * @see UIProperties#getAvailableFonts() 
+     */
+    private static final CompletableFuture<String []> availableFonts = CompletableFuture.supplyAsync(() -> {
+        String [] fonts = GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames();
+        AVAILABLE_FONTS = fonts;
+        
+        return fonts;
+    });
     
     
     protected static int standardFontSize = 13;
@@ -208,6 +273,12 @@ public class UIProperties {
      */
     protected static int scrollbarWidth = 10;
     
+    /**
+     * Rendering profile used by custom painted components
+     * @see UIProperties#setRenderingQuality(ui.enums.RenderingQuality) 
+     */
+    protected static RenderingQuality renderingQuality = RenderingQuality.QUALITY;
+    
     /**
      * Sets app palette to light colors<br><br>
      * 
@@ -228,6 +299,8 @@ public class UIProperties {
         }
         
         lightThemeActive = true;
+        publishTheme();
+        PreferenceChangeBus.publish(Preferences.APPEARANCE);
     }
     
     /**
@@ -250,6 +323,8 @@ public class UIProperties {
         }
         
         lightThemeActive = false;
+        publishTheme();
+        PreferenceChangeBus.publish(Preferences.APPEARANCE);
     }
 
     /**
@@ -288,9 +363,12 @@ public class UIProperties {
     }
 
     public static void setUseAccentColors(boolean accentColors) {
-        UIProperties.accentColors = accentColors;
-        initUIAccentColors();
-        setLightThemeActive(isLightThemeActive());
+        PreferenceChangeBus.batch(() -> {
+            UIProperties.accentColors = accentColors;
+            initUIAccentColors();
+            setLightThemeActive(isLightThemeActive());
+            PreferenceChangeBus.publish(Preferences.USE_ACCENT_COLORS);
+        });
     }
     
     public static boolean usesAccentColors() {
@@ -321,8 +399,19 @@ public class UIProperties {
         scrollbarWidth = (int) (10 * uiScale);
         
         initFonts();
+        PreferenceChangeBus.publish(Preferences.UI_SCALE);
     }
 
+    /**
+     * Retrieves the installed font families, this method will block if font 
+     * enumeration hasn't finished yet
+     * 
+     * @return the font family names
+     */
+    public static String [] getAvailableFonts() {
+        return availableFonts.join();
+    }
+    
     public static float getUiScale() {
         return uiScale;
     }
@@ -330,6 +419,7 @@ public class UIProperties {
     public static void setStandardFontSize(int standardFontSize) {
         UIProperties.standardFontSize = standardFontSize;
         UIProperties.initFonts();
+        PreferenceChangeBus.publish(Preferences.STANDARD_FONT_WIDTH);
     }
 
     public static int getStandardFontSize() {
@@ -339,6 +429,7 @@ public class UIProperties {
     public static void setSubtitleFontSize(int subtitleFontSize) {
         UIProperties.subtitleFontSize = subtitleFontSize;
         UIProperties.initFonts();
+        PreferenceChangeBus.publish(Preferences.SUBTITLE_FONT_WIDTH);
     }
 
     public static int getSubtitleFontSize() {
@@ -348,6 +439,7 @@ public class UIProperties {
     public static void setTitleFontSize(int titleFontSize) {
         UIProperties.titleFontSize = titleFontSize;
         UIProperties.initFonts();
+        PreferenceChangeBus.publish(Preferences.TITLE_FONT_WIDTH);
     }
 
     public static int getTitleFontSize() {
@@ -358,6 +450,99 @@ public class UIProperties {
         return buttonRoundRadius;
     }
     
+    /**
+     * Publishes a new snapshot with the current colors, fonts and sizes.<br>
+     * This is done automatically by UIProperties methods, call it only after
+     * assigning public fields such as {@link UIProperties#APP_BG_COLOR} 
+     * directly
+     * 
+     * @see Theme
+     */
+    public static synchronized void publishTheme() {
+        theme = new Theme(++themeVersion);
+    }
+    
+    /**
+     * Retrieves the current theme, this method can be called from any thread
+     * 
+     * @return the latest published snapshot
+     */
+    public static Theme getTheme() {
+        return theme;
+    }
+    
+    /**
+     * Creates a snapshot of how the theme will look after calling 
+     * {@link UIProperties#setLightThemeActive(boolean)}, nothing is changed
+     * 
+     * @param lightTheme if false, the dark palette is used
+     * @return an unpublished snapshot
+     */
+    public static Theme previewTheme(boolean lightTheme) {
+        return new Theme(-1, lightTheme, true);
+    }
+    
+    /**
+     * Changes the rendering profile of every custom painted component, all
+     * windows are repainted so the change is visible immediately
+     * 
+     * @param renderingQuality the new profile
+     * @see ui.enums.RenderingQuality
+     */
+    public static void setRenderingQuality(RenderingQuality renderingQuality) {
+        if (renderingQuality == null)
+            throw new IllegalArgumentException("Rendering quality cannot be null");
+        
+        UIProperties.renderingQuality = renderingQuality;
+        
+        for (java.awt.Window w : java.awt.Window.getWindows())
+            w.repaint();
+        
+        PreferenceChangeBus.publish(Preferences.RENDERING_QUALITY);
+    }
+    
+    public static RenderingQuality getRenderingQuality() {
+        return renderingQuality;
+    }
+    
+    /**
+     * Sets the rendering hints of the active rendering profile
+     * 
+     * @param g2D the Graphics2D object to setup
+     */
+    public static void applyRenderingHints(Graphics2D g2D) {
+        applyRenderingHints(g2D, null);
+    }
+    
+    /**
+     * Sets the rendering hints of a rendering profile
+     * 
+     * @param g2D the Graphics2D object to setup
+     * @param quality the profile, if null the active profile is used
+     */
+    public static void applyRenderingHints(Graphics2D g2D, RenderingQuality quality) {
+        if (quality == null)
+            quality = renderingQuality;
+        
+        switch (quality) {
+            case QUALITY:
+                g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+                g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            break;
+            case BALANCED:
+                g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+                g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_DEFAULT);
+            break;
+            case SPEED:
+                g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+                g2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+                g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            break;
+        }
+    }
+    
     public static String UIAlignmentToString(UIAlignment align) {
         switch (align) {
             case NORTH:
@@ -459,4 +644,17 @@ public class UIProperties {
         new Color(164, 176, 46),
         new Color(144, 156, 26)
     };
+    
+    /**
+     * Applies the default preferences, this block must stay after every
+     * static field so their initializers don't overwrite the preferences
+     */
+    static {
+        LibUtilities.loadDefaultPreferences();
+        initUIAccentColors();
+        initFonts();
+        publishTheme();
+        
+        System.out.println("[INFO] UIProperties initialized!");
+    }
 }
@@ -0,0 +1,121 @@
+package ui;
+
+import java.awt.Component;
+import java.awt.Frame;
+import java.awt.Window;
+import java.awt.event.HierarchyBoundsListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowStateListener;
+import java.util.function.Consumer;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Tracks whether a component is actually displayed<br>
+ * A component is considered displayed if it's showing, its window is not
+ * minimized and at least part of it is inside its viewport. Animated
+ * components use this to pause their timers while nobody can see them.
+ * 
+ * @author cristopher
+ */
+public class VisibilityTracker implements HierarchyListener, HierarchyBoundsListener, WindowStateListener {
+    private final JComponent component;
+    private final Consumer<Boolean> listener;
+    
+    private Window window = null;
+    private boolean displayed;
+    
+    private VisibilityTracker(JComponent component, Consumer<Boolean> listener) {
+        this.component = component;
+        this.listener = listener;
+        this.displayed = isDisplayed(component);
+    }
+    
+    /**
+     * Starts tracking a component, the listener is called on the EDT
+     * every time the component is shown or hidden
+     * 
+     * @param component the component to track
+     * @param listener receives true when the component becomes displayed
+     * and false when it stops being displayed
+     */
+    public static void install(JComponent component, Consumer<Boolean> listener) {
+        VisibilityTracker tracker = new VisibilityTracker(component, listener);
+        
+        component.addHierarchyListener(tracker);
+        component.addHierarchyBoundsListener(tracker);
+        tracker.updateWindow();
+    }
+    
+    /**
+     * @param component the component
+     * @return true if the component is showing, its window is not minimized
+     * and it's not scrolled out of its viewport
+     */
+    public static boolean isDisplayed(JComponent component) {
+        if (!component.isShowing())
+            return false;
+        
+        Window w = SwingUtilities.getWindowAncestor(component);
+        if (w instanceof Frame && (((Frame) w).getExtendedState() & Frame.ICONIFIED) != 0)
+            return false;
+        
+        return !component.getVisibleRect().isEmpty();
+    }
+    
+    private void updateWindow() {
+        Window w = SwingUtilities.getWindowAncestor(component);
+        if (w == window)
+            return;
+        
+        if (window != null)
+            window.removeWindowStateListener(this);
+        
+        window = w;
+        
+        if (window != null)
+            window.addWindowStateListener(this);
+    }
+    
+    private void update() {
+        boolean d = isDisplayed(component);
+        if (d == displayed)
+            return;
+        
+        displayed = d;
+        listener.accept(d);
+    }
+    
+    @Override
+    public void hierarchyChanged(HierarchyEvent e) {
+        if ((e.getChangeFlags() & (HierarchyEvent.PARENT_CHANGED | HierarchyEvent.SHOWING_CHANGED | HierarchyEvent.DISPLAYABILITY_CHANGED)) == 0)
+            return;
+        
+        updateWindow();
+        update();
+    }
+    
+    @Override
+    public void ancestorMoved(HierarchyEvent e) {
+        Component c = e.getChanged();
+        
+        // Only viewports move their views, windows moving around don't
+        // change what's displayed
+        if (c instanceof Window)
+            return;
+        
+        update();
+    }
+    
+    @Override
+    public void ancestorResized(HierarchyEvent e) {
+        update();
+    }
+    
+    @Override
+    public void windowStateChanged(WindowEvent e) {
+        update();
+    }
+}
@@ -0,0 +1,13 @@
+package ui.enums;
+
+/**
+ * Rendering profiles for custom painted components<br>
+ * QUALITY: antialiasing, fractional metrics and quality rendering<br>
+ * BALANCED: antialiasing only<br>
+ * SPEED: no antialiasing, recommended for remote desktops and slow hardware
+ * 
+ * @author cristopher
+ */
+public enum RenderingQuality {
+    QUALITY, BALANCED, SPEED
+}
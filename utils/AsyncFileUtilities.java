@@ -0,0 +1,255 @@
+package utils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous versions of the {@link FileUtilities} operations<br>
+ * Every operation runs on a dedicated I/O executor and returns a
+ * {@link CompletableFuture}, so the event dispatch thread is never blocked.
+ * Operations that fail complete exceptionally with the IOException that
+ * caused the failure instead of returning false or null.<br><br>
+ * 
+ * Cancelling a future interrupts the operation, partial files are removed
+ * or, for downloads, kept to be resumed. Futures complete on the I/O
+ * threads; to update components use, for example,
+ * <code>thenAcceptAsync(action, SwingUtilities::invokeLater)</code>.
+ * Progress listeners are called on the I/O threads too, the ones created
+ * by {@link ui.ProgressBar#createProgressListener()} can be passed directly.
+ * <pre>
+ * AsyncFileUtilities.copyFile(source, target, true, progressBar.createProgressListener())
+ *         .thenRunAsync(() -&gt; label.setText("Copied"), SwingUtilities::invokeLater);
+ * </pre>
+ * 
+ * @author cristopher
+ */
+public class AsyncFileUtilities {
+    /**
+     * Maximum number of operations running at once, the rest wait in a queue
+     */
+    public static final int IO_THREADS = 4;
+    
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (r) -> {
+        Thread t = new Thread(r, "FileUtilities-io");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+    
+    private AsyncFileUtilities() { }
+    
+    /**
+     * A future that interrupts its operation when it's cancelled
+     */
+    private static class IOFuture<T> extends CompletableFuture<T> {
+        private volatile Future<?> task;
+        
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            
+            Future<?> t = task;
+            if (cancelled && t != null)
+                t.cancel(true);
+            
+            return cancelled;
+        }
+    }
+    
+    private static <T> CompletableFuture<T> submit(Callable<T> operation) {
+        IOFuture<T> future = new IOFuture<>();
+        
+        future.task = executor.submit(() -> {
+            if (future.isDone())
+                return;
+            
+            try {
+                future.complete(operation.call());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        
+        // The future may have been cancelled before the task was assigned
+        if (future.isCancelled())
+            future.task.cancel(true);
+        
+        return future;
+    }
+    
+    /**
+     * @return the executor running the operations, it can be used to run
+     * other I/O work on the same threads
+     */
+    public static ExecutorService getExecutor() {
+        return executor;
+    }
+    
+    /**
+     * Reads a plain text file
+     * 
+     * @param file file path
+     * @param charset the charset of the file
+     * @return a future with the contents of the file
+     * @see FileUtilities#readFile(java.io.File, java.nio.charset.Charset)
+     */
+    public static CompletableFuture<String> readFile(File file, Charset charset) {
+        return submit(() -> {
+            if (!file.isFile() || !file.canRead())
+                throw new FileNotFoundException("File '" + file + "' can't be read");
+            
+            return FileUtilities.doReadFile(file, charset);
+        });
+    }
+    
+    /**
+     * Writes a plain text file
+     * 
+     * @param file file path
+     * @param data string to write
+     * @return a future completed when the file is written
+     * @see FileUtilities#writeFile(java.io.File, java.lang.String)
+     */
+    public static CompletableFuture<Void> writeFile(File file, String data) {
+        return submit(() -> {
+            FileUtilities.doWriteFile(file, data);
+            return null;
+        });
+    }
+    
+    /**
+     * Copies a file
+     * 
+     * @param source the file to copy
+     * @param target the copy
+     * @param atomicReplace if true, the target is replaced only after the
+     * copy is complete, otherwise a cancelled copy deletes the target since
+     * its previous content was already overwritten
+     * @param listener notified with the bytes copied, it can be null
+     * @return a future completed when the file is copied
+     * @see FileUtilities#copyFile(java.io.File, java.io.File, boolean, utils.ProgressListener)
+     */
+    public static CompletableFuture<Void> copyFile(File source, File target, boolean atomicReplace, ProgressListener listener) {
+        return submit(() -> {
+            try {
+                FileUtilities.doCopyFile(source, target, atomicReplace, listener);
+            } catch (IOException ex) {
+                if (!atomicReplace && Thread.currentThread().isInterrupted())
+                    try {
+                        Files.deleteIfExists(target.toPath());
+                    } catch (IOException ex1) {
+                        ex.addSuppressed(ex1);
+                    }
+                
+                throw ex;
+            }
+            
+            return null;
+        });
+    }
+    
+    /**
+     * Creates a zip archive with the contents of a directory
+     * 
+     * @param directory the directory to compress
+     * @param outputFile the zip archive
+     * @param listener notified with the bytes compressed, it can be null
+     * @return a future completed when the archive is written
+     * @see FileUtilities#zipDirectory(java.io.File, java.io.File, utils.ProgressListener, utils.ZipEntryListener)
+     */
+    public static CompletableFuture<Void> zipDirectory(File directory, File outputFile, ProgressListener listener) {
+        return submit(() -> {
+            FileUtilities.doZipDirectory(directory, outputFile, listener, null);
+            return null;
+        });
+    }
+    
+    /**
+     * Extracts all files from a zip archive
+     * 
+     * @param inputFile the zip archive to extract from
+     * @param outputPath the directory where all files will be extracted
+     * @param listener notified with the bytes extracted, it can be null
+     * @return a future completed when all files are extracted
+     * @see FileUtilities#extractAllZippedFiles(java.io.File, java.io.File, utils.ProgressListener, utils.ZipEntryListener)
+     */
+    public static CompletableFuture<Void> extractAllZippedFiles(File inputFile, File outputPath, ProgressListener listener) {
+        return submit(() -> {
+            FileUtilities.doExtractAllZippedFiles(inputFile, outputPath, listener, null);
+            return null;
+        });
+    }
+    
+    /**
+     * Downloads a file from a URL, <b>**this will overwrite the output file if exist**</b>
+     * 
+     * @param url the URL to retrieve the content
+     * @param outputFile where the file should be saved
+     * @param listener notified with the bytes received, it can be null
+     * @return a future with the output file
+     * @see FileDownload
+     */
+    public static CompletableFuture<File> downloadFile(String url, File outputFile, ProgressListener listener) {
+        FileDownload download = new FileDownload(url, outputFile);
+        download.setProgressListener(listener);
+        
+        return download(download);
+    }
+    
+    /**
+     * Runs a configured download, cancelling the future cancels the download
+     * and keeps the partial file
+     * 
+     * @param download the download
+     * @return a future with the output file
+     */
+    public static CompletableFuture<File> download(FileDownload download) {
+        CompletableFuture<File> future = submit(() -> {
+            download.run();
+            return download.getOutputFile();
+        });
+        
+        // Reads may not notice the interruption until data arrives
+        future.whenComplete((file, ex) -> {
+            if (future.isCancelled())
+                download.cancel();
+        });
+        
+        return future;
+    }
+    
+    /**
+     * Lists files given a directory
+     * 
+     * @param path the directory
+     * @param filter the filename filter, it can be null
+     * @return a future with the files
+     * @see FileUtilities#listFiles(java.io.File, java.io.FilenameFilter)
+     */
+    public static CompletableFuture<File []> listFiles(File path, FilenameFilter filter) {
+        return submit(() -> {
+            if (!path.isDirectory() || !path.canRead())
+                throw new FileNotFoundException("Directory '" + path + "' can't be read");
+            
+            File [] files = FileUtilities.listFiles(path, filter);
+            if (files == null)
+                throw new IOException("Could not list '" + path + "'");
+            
+            return files;
+        });
+    }
+}
@@ -3,9 +3,17 @@ package utils;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import utils.enums.FFUtil;
 import utils.enums.InstallationStatus;
 
@@ -54,37 +62,37 @@ public class FFmpegUtilities {
      * The command to invoke FFmpeg, {@link utils.FFmpegUtilities#FFMPEG_PATH} is the
      * CWD for downloaded copies using this library
      */
-    public static String ffmpegCommand;
+    public static volatile String ffmpegCommand;
     
     /**
      * The command to invoke FFplay, {@link utils.FFmpegUtilities#FFMPEG_PATH} is the
      * CWD for downloaded copies using this library
      */
-    public static String ffplayCommand;
+    public static volatile String ffplayCommand;
     
     /**
      * The command to invoke FFplay, {@link utils.FFmpegUtilities#FFMPEG_PATH} is the
      * CWD for downloaded copies using this library
      */
-    public static String ffprobeCommand;
+    public static volatile String ffprobeCommand;
     
     /**
      * Indicates if FFmpeg is in {@link utils.FFmpegUtilities#LIB_FFMPEG_DIRECTORY} or
      * it's installed on PATH
      */
-    public static boolean isFFmpegInstalled;
+    public static volatile boolean isFFmpegInstalled;
     
     /**
      * Indicates if FFplay is in {@link utils.FFmpegUtilities#LIB_FFMPEG_DIRECTORY} or
      * it's installed on PATH
      */
-    public static boolean isFFplayInstalled;
+    public static volatile boolean isFFplayInstalled;
     
     /**
      * Indicates if FFprobe is in {@link utils.FFmpegUtilities#LIB_FFMPEG_DIRECTORY} or
      * it's installed on PATH
      */
-    public static boolean isFFprobeInstalled;
+    public static volatile boolean isFFprobeInstalled;
     
     /**
      * The downloading status for FFmpeg
@@ -100,11 +108,67 @@ public class FFmpegUtilities {
      */
     public static InstallationStatus installStatus = InstallationStatus.NONE;
     
+    /**
+     * Notified with the bytes received of every file downloaded by
+     * {@link utils.FFmpegUtilities#downloadFFmpeg()} while
+     * {@link utils.FFmpegUtilities#installStatus} is DOWNLOADING, it can be null.
+     * Interrupted downloads are continued the next time downloadFFmpeg is called
+     */
+    public static volatile ProgressListener downloadListener = null;
+    
+    /**
+     * Maximum time in milliseconds a FF-utility is allowed to run while it's
+     * being detected, after that it's destroyed
+     */
+    public static final long DETECTION_TIMEOUT = 2000;
+    
+    /**
+     * File where detection results are kept, every entry is keyed by the path
+     * and modification time of the binary found on PATH
+     */
+    private static final File DETECTION_CACHE = FileUtilities.joinPath(LIB_FFMPEG_DIRECTORY, "ffutils_detection");
+    
+    private static final ExecutorService detectionThreads = Executors.newCachedThreadPool((r) -> {
+        Thread t = new Thread(r, "FFmpegUtilities-detection");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    /**
+     * Detection started when this class is loaded
+     * @see FFmpegUtilities#getInstallationDetection()
+     */
+    private static final CompletableFuture<Boolean> installationDetection;
+    
     static {
         if (!LIB_FFMPEG_DIRECTORY.exists())
             LIB_FFMPEG_DIRECTORY.mkdir();
         
-        checkFFUtilsInstallation();
+        for (FFUtil utility : FFUtil.values())
+            setFFUtilCommand(utility, false);
+        
+        installationDetection = checkFFUtilsInstallationAsync();
+    }
+    
+    /**
+     * Gets the detection started when this class was loaded, the installation
+     * flags and commands should not be trusted until it's done
+     * 
+     * @return a future completed with {@link FFmpegUtilities#areFFUtilsInstalled()}
+     */
+    public static CompletableFuture<Boolean> getInstallationDetection() {
+        return installationDetection;
+    }
+    
+    /**
+     * Waits until the detection started when this class was loaded is done
+     */
+    private static void awaitInstallationDetection() {
+        try {
+            installationDetection.join();
+        } catch (CompletionException | CancellationException ex) {
+            ex.printStackTrace();
+        }
     }
     
     /**
@@ -129,61 +193,164 @@ public class FFmpegUtilities {
      * doesn't return anything instead <code>isFFmpegInstalled</code>, <code>isFFplayInstalled</code>
      * and <code>isFFprobeInstalled</code> flags are going to be updated<br><br>
      * 
+     * The utility is only run if it's not on the detection cache or its binary
+     * changed since it was cached
+     * 
      * @param utility which tool is going to look after
      * @see utils.FFmpegUtilities#isFFmpegInstalled
      * @see utils.FFmpegUtilities#isFFplayInstalled
      * @see utils.FFmpegUtilities#isFFprobeInstalled
      */
     public static void checkFFUtilInstallation(FFUtil utility) {
-        Process process = null;
-        
-        String command = utility == FFUtil.FFMPEG ? "ffmpeg" : utility == FFUtil.FFPLAY ? "ffplay" : "ffprobe";
-        
-        try {
-            process = Runtime.getRuntime().exec(command, null);
-            process.waitFor();
-            
-            switch (utility) {
-                case FFMPEG: isFFmpegInstalled = true; break;
-                case FFPLAY: isFFplayInstalled = true; break;
-                case FFPROBE: isFFprobeInstalled = true; break;
-            }
-        } catch (IOException | InterruptedException ex) {
-            switch (utility) {
-                case FFMPEG: isFFmpegInstalled = false; break;
-                case FFPLAY: isFFplayInstalled = false; break;
-                case FFPROBE: isFFprobeInstalled = false; break;
-            }
-        } finally {
-            if (process != null)
-                process.destroy();
-        }
-        
-        boolean flag = utility == FFUtil.FFMPEG ? isFFmpegInstalled : 
-                       utility == FFUtil.FFPLAY ? isFFplayInstalled : 
-                       isFFprobeInstalled;
+        Properties cache = loadDetectionCache();
+        checkFFUtilInstallation(utility, cache);
+        saveDetectionCache(cache);
+    }
+    
+    private static void checkFFUtilInstallation(FFUtil utility, Properties cache) {
+        setFFUtilCommand(utility, isFFUtilOnPath(utility, cache));
+    }
+    
+    /**
+     * Updates the command and installation flag of a utility
+     * 
+     * @param utility the tool
+     * @param onPath if the tool can be invoked by its name
+     */
+    private static synchronized void setFFUtilCommand(FFUtil utility, boolean onPath) {
+        String command = getFFUtilName(utility);
         
         String localCommand = "./" + command;
         String absoluteCommand = utility == FFUtil.FFMPEG ? FFMPEG_PATH.getAbsolutePath() : 
                                  utility == FFUtil.FFPLAY ? FFPLAY_PATH.getAbsolutePath() : 
                                  FFPROBE_PATH.getAbsolutePath();
         
-        String globalCommand = flag && LibUtilities.IS_UNIX_LIKE ? command : 
+        String globalCommand = onPath && LibUtilities.IS_UNIX_LIKE ? command :
                                LibUtilities.IS_UNIX_LIKE ? localCommand : 
                                absoluteCommand;
         
         switch (utility) {
-            case FFMPEG: ffmpegCommand = globalCommand; break;
-            case FFPLAY: ffplayCommand = globalCommand; break;
-            case FFPROBE: ffprobeCommand = globalCommand; break;
+            case FFMPEG: ffmpegCommand = globalCommand; isFFmpegInstalled = onPath || FFMPEG_PATH.exists(); break;
+            case FFPLAY: ffplayCommand = globalCommand; isFFplayInstalled = onPath || FFPLAY_PATH.exists(); break;
+            case FFPROBE: ffprobeCommand = globalCommand; isFFprobeInstalled = onPath || FFPROBE_PATH.exists(); break;
+        }
+    }
+    
+    private static String getFFUtilName(FFUtil utility) {
+        return utility == FFUtil.FFMPEG ? "ffmpeg" : utility == FFUtil.FFPLAY ? "ffplay" : "ffprobe";
+    }
+    
+    /**
+     * Checks if a utility can be invoked by its name, the result is taken from
+     * the cache if the binary found on PATH has the same path and modification
+     * time as the cached one
+     * 
+     * @param utility the tool
+     * @param cache the detection cache, it's updated with the result
+     * @return true if the tool is on PATH
+     */
+    private static boolean isFFUtilOnPath(FFUtil utility, Properties cache) {
+        String command = getFFUtilName(utility);
+        File binary = findOnPath(command);
+        
+        if (binary == null) {
+            cache.remove(command + ".path");
+            cache.remove(command + ".modified");
+            cache.remove(command + ".installed");
+            return runsFFUtil(command);
         }
         
-        if (!flag)
-            switch (utility) {
-                case FFMPEG: isFFmpegInstalled = FFMPEG_PATH.exists(); break;
-                case FFPLAY: isFFplayInstalled = FFPLAY_PATH.exists(); break;
-                case FFPROBE: isFFprobeInstalled = FFPROBE_PATH.exists(); break;
+        String path = binary.getAbsolutePath();
+        String modified = String.valueOf(binary.lastModified());
+        
+        if (path.equals(cache.getProperty(command + ".path")) && modified.equals(cache.getProperty(command + ".modified")))
+            return Boolean.parseBoolean(cache.getProperty(command + ".installed"));
+        
+        boolean installed = runsFFUtil(command);
+        cache.setProperty(command + ".path", path);
+        cache.setProperty(command + ".modified", modified);
+        cache.setProperty(command + ".installed", String.valueOf(installed));
+        
+        return installed;
+    }
+    
+    /**
+     * Looks for an executable in the directories listed on PATH
+     * 
+     * @param command the executable name, without extension
+     * @return the executable or null if it's not found
+     */
+    private static File findOnPath(String command) {
+        String path = System.getenv("PATH");
+        if (path == null)
+            return null;
+        
+        String [] names = LibUtilities.IS_UNIX_LIKE ? new String[] {command} : new String[] {command + ".exe", command};
+        
+        for (String directory : path.split(File.pathSeparator)) {
+            directory = directory.replace("\"", "");
+            if (directory.isEmpty())
+                continue;
+            
+            for (String name : names) {
+                File f = new File(directory, name);
+                if (f.isFile())
+                    return f;
             }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Tries to run a utility, it's destroyed after {@link FFmpegUtilities#DETECTION_TIMEOUT}
+     * 
+     * @param command the utility name
+     * @return true if the utility could be started
+     */
+    private static boolean runsFFUtil(String command) {
+        Process process = null;
+        
+        try {
+            ProcessBuilder processBuilder = new ProcessBuilder(command, "-version");
+            processBuilder.redirectErrorStream(true);
+            processBuilder.redirectOutput(new File(LibUtilities.IS_UNIX_LIKE ? "/dev/null" : "NUL"));
+            
+            process = processBuilder.start();
+            process.waitFor(DETECTION_TIMEOUT, TimeUnit.MILLISECONDS);
+            
+            return true;
+        } catch (IOException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return true;
+        } finally {
+            if (process != null)
+                process.destroyForcibly();
+        }
+    }
+    
+    private static Properties loadDetectionCache() {
+        Properties cache = new Properties();
+        if (!DETECTION_CACHE.exists())
+            return cache;
+        
+        try (FileInputStream inputStream = new FileInputStream(DETECTION_CACHE)) {
+            cache.load(inputStream);
+        } catch (IOException | IllegalArgumentException ex) {
+            ex.printStackTrace();
+        }
+        
+        return cache;
+    }
+    
+    private static synchronized void saveDetectionCache(Properties cache) {
+        try (FileOutputStream outputStream = new FileOutputStream(DETECTION_CACHE)) {
+            cache.store(outputStream, "libBasicUI FF-utilities detection");
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
     }
     
     /**
@@ -193,6 +360,8 @@ public class FFmpegUtilities {
      * @see FFmpegUtilities#isFFprobeInstalled
      */
     public static boolean areFFUtilsInstalled() {
+        awaitInstallationDetection();
+        
         return isFFmpegInstalled && isFFplayInstalled && isFFprobeInstalled;
     }
     
@@ -205,13 +374,41 @@ public class FFmpegUtilities {
      * @see utils.FFmpegUtilities#isFFplayInstalled
      * @see utils.FFmpegUtilities#isFFprobeInstalled
      * @see utils.FFmpegUtilities#checkFFUtilInstallation(utils.enums.FFUtil) 
+     * @see utils.FFmpegUtilities#checkFFUtilsInstallationAsync()
      */
     public static boolean checkFFUtilsInstallation() {
-        checkFFUtilInstallation(FFUtil.FFMPEG);
-        checkFFUtilInstallation(FFUtil.FFPLAY);
-        checkFFUtilInstallation(FFUtil.FFPROBE);
+        try {
+            return checkFFUtilsInstallationAsync().join();
+        } catch (CompletionException | CancellationException ex) {
+            ex.printStackTrace();
+        }
         
-        return areFFUtilsInstalled();
+        return false;
+    }
+    
+    /**
+     * Checks in parallel whether FFUtils (FFmpeg, FFplay and FFprobe) are
+     * installed or not, the caller is not blocked
+     * 
+     * @return a future completed with true if the three tools are installed
+     * on PATH or locally
+     * @see utils.FFmpegUtilities#checkFFUtilsInstallation()
+     */
+    public static CompletableFuture<Boolean> checkFFUtilsInstallationAsync() {
+        return CompletableFuture.supplyAsync(FFmpegUtilities::loadDetectionCache, detectionThreads).thenCompose((cache) -> {
+            FFUtil [] utilities = FFUtil.values();
+            CompletableFuture<?> [] checks = new CompletableFuture<?>[utilities.length];
+            
+            for (int i = 0; i < utilities.length; i++) {
+                FFUtil utility = utilities[i];
+                checks[i] = CompletableFuture.runAsync(() -> checkFFUtilInstallation(utility, cache), detectionThreads);
+            }
+            
+            return CompletableFuture.allOf(checks).thenApply((v) -> {
+                saveDetectionCache(cache);
+                return isFFmpegInstalled && isFFplayInstalled && isFFprobeInstalled;
+            });
+        });
     }
     
     /**
@@ -235,27 +432,21 @@ public class FFmpegUtilities {
      * @see utils.FFmpegUtilities#LIB_FFMPEG_DIRECTORY
      */
     public static boolean copyFFUtil(File f, FFUtil utility) {
-        try {
-            if (!FileUtilities.writeFile(new FileInputStream(f), FFMPEG_PATH, true))
-                return false;
-            
-            if (LibUtilities.IS_UNIX_LIKE)
-                switch (utility) {
-                    case FFMPEG: FFMPEG_PATH.setExecutable(true); break;
-                    case FFPLAY: FFPLAY_PATH.setExecutable(true); break;
-                    case FFPROBE: FFPROBE_PATH.setExecutable(true); break;
-                }
-            
-            checkFFUtilInstallation(utility);
-            
-            return utility == FFUtil.FFMPEG ? isFFmpegInstalled : 
-                   utility == FFUtil.FFPLAY ? isFFplayInstalled : 
-                   isFFprobeInstalled;
-        } catch (FileNotFoundException ex) {
-            ex.printStackTrace();
-        }
+        File path = utility == FFUtil.FFMPEG ? FFMPEG_PATH :
+                    utility == FFUtil.FFPLAY ? FFPLAY_PATH :
+                    FFPROBE_PATH;
         
-        return false;
+        if (!FileUtilities.copyFile(f, path, true, null))
+            return false;
+        
+        if (LibUtilities.IS_UNIX_LIKE)
+            path.setExecutable(true);
+        
+        checkFFUtilInstallation(utility);
+        
+        return utility == FFUtil.FFMPEG ? isFFmpegInstalled :
+               utility == FFUtil.FFPLAY ? isFFplayInstalled :
+               isFFprobeInstalled;
     }
     
     private static boolean extractFFPackage(String [] relativePaths) {
@@ -382,13 +573,13 @@ public class FFmpegUtilities {
             };
             
             for (int i = 0; i < urls.length; i++)
-                if (!FileUtilities.downloadFile(urls[i], downloadPaths[i])) {
+                if (!FileUtilities.downloadFile(urls[i], downloadPaths[i], downloadListener)) {
                     installStatus = InstallationStatus.DOWNLOAD_ERROR;
                     return false;
                 }
         } else {
             downloadPath = FileUtilities.joinPath(LIB_FFMPEG_DIRECTORY, "ffmpeg_package" + (isZip ? ".zip" : ".tar.xz"));
-            if (!FileUtilities.downloadFile(url, downloadPath)) {
+            if (!FileUtilities.downloadFile(url, downloadPath, downloadListener)) {
                 installStatus = InstallationStatus.DOWNLOAD_ERROR;
                 return false;
             }
@@ -468,6 +659,8 @@ public class FFmpegUtilities {
      * @see utils.ProcessOutput#haltProcess
      */
     public static void callFFUtil(ProcessOutput objectData, FFUtil utility, String ... args) throws IOException, InterruptedException {
+        awaitInstallationDetection();
+        
         String [] arguments = new String[args.length + 1];
         
         arguments[0] = utility == FFUtil.FFMPEG ? ffmpegCommand :
@@ -0,0 +1,437 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Downloads a file from a URL<br>
+ * Data is written to <code>&lt;outputFile&gt;.part</code>, which replaces the
+ * output file once the download is complete and verified. If the connection
+ * fails or times out, the download continues from the partial file using an
+ * HTTP Range request, a partial file left by a previous run is continued the
+ * same way. Servers that don't support ranges send the whole file again.<br><br>
+ * 
+ * A checksum can be verified while the data is received, only data left by
+ * a previous run is read again from the partial file.
+ * <pre>
+ * FileDownload download = new FileDownload(url, file);
+ * download.setChecksum("SHA-256", "9f86d0...");
+ * download.setProgressListener(progressBar.createProgressListener());
+ * boolean downloaded = download.start();
+ * </pre>
+ * 
+ * @author cristopher
+ * @see FileUtilities#downloadFile(java.lang.String, java.io.File, utils.ProgressListener)
+ */
+public class FileDownload {
+    /**
+     * Default milliseconds to wait for a connection
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 15000;
+    
+    /**
+     * Default milliseconds to wait for data once connected
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 30000;
+    
+    /**
+     * Default number of connections tried before the download fails
+     */
+    public static final int DEFAULT_ATTEMPTS = 3;
+    
+    private static class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        private final int code;
+        
+        HttpStatusException(int code, String url) {
+            super("Server returned HTTP " + code + " for '" + url + "'");
+            this.code = code;
+        }
+    }
+    
+    private final String url;
+    private final File outputFile;
+    private final Path partialFile;
+    private final Path validatorFile;
+    
+    private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private int readTimeout = DEFAULT_READ_TIMEOUT;
+    private int attempts = DEFAULT_ATTEMPTS;
+    private boolean resume = true;
+    private ProgressListener listener;
+    private String checksumAlgorithm;
+    private String expectedChecksum;
+    
+    private MessageDigest digest;
+    private long digestedBytes;
+    
+    private volatile boolean cancelled = false;
+    private volatile long downloadedBytes = 0;
+    private volatile long totalBytes = -1;
+    
+    /**
+     * Creates a new download, <b>**the output file will be overwritten if
+     * exist**</b>
+     * 
+     * @param url the URL to retrieve the content
+     * @param outputFile where the file should be saved
+     */
+    public FileDownload(String url, File outputFile) {
+        this.url = url;
+        this.outputFile = outputFile.getAbsoluteFile();
+        
+        partialFile = new File(this.outputFile.getPath() + ".part").toPath();
+        validatorFile = new File(this.outputFile.getPath() + ".part.validator").toPath();
+    }
+    
+    /**
+     * Sets the timeouts, zero waits forever
+     * 
+     * @param connectTimeout milliseconds to wait for a connection
+     * @param readTimeout milliseconds to wait for data once connected
+     * @throws IllegalArgumentException if a timeout is negative
+     */
+    public void setTimeouts(int connectTimeout, int readTimeout) throws IllegalArgumentException {
+        if (connectTimeout < 0 || readTimeout < 0)
+            throw new IllegalArgumentException("Timeouts cannot be negative");
+        
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+    
+    /**
+     * @param attempts connections tried before the download fails, every
+     * attempt continues where the previous one stopped
+     * @throws IllegalArgumentException if attempts is less than one
+     */
+    public void setAttempts(int attempts) throws IllegalArgumentException {
+        if (attempts < 1)
+            throw new IllegalArgumentException("At least one attempt is needed");
+        
+        this.attempts = attempts;
+    }
+    
+    /**
+     * @param resume if false, a partial file left by a previous run is
+     * discarded. Failed attempts are always continued
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+    
+    /**
+     * @param listener notified with the bytes of the file received so far,
+     * including the ones of a resumed partial file. It's called on the thread
+     * running {@link FileDownload#start()}, it can be null
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+    
+    /**
+     * Sets the checksum the file must have, if it doesn't match the download
+     * fails and the partial file is deleted
+     * 
+     * @param algorithm a {@link MessageDigest} algorithm, e.g. <code>SHA-256</code>
+     * @param checksum the expected digest in hexadecimal, null to not verify
+     * the file
+     * @throws IllegalArgumentException if the algorithm is not available
+     */
+    public void setChecksum(String algorithm, String checksum) throws IllegalArgumentException {
+        if (checksum != null)
+            try {
+                MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalArgumentException("Algorithm '" + algorithm + "' is not available");
+            }
+        
+        checksumAlgorithm = algorithm;
+        expectedChecksum = checksum;
+    }
+    
+    /**
+     * Stops the download, the partial file is kept to be resumed later
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    /**
+     * @return where the file is saved
+     */
+    public File getOutputFile() {
+        return outputFile;
+    }
+    
+    /**
+     * @return the bytes of the file received so far
+     */
+    public long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+    
+    /**
+     * @return the size of the file or -1 if it's unknown
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    /**
+     * Downloads the file, this method blocks until the download finishes
+     * 
+     * @return true if the file was downloaded and its checksum matches,
+     * false if it fails or is cancelled
+     */
+    public boolean start() {
+        try {
+            run();
+            return true;
+        } catch (IOException ex) {
+            // A cancelled download is not a failure to report
+            if (!cancelled && !Thread.currentThread().isInterrupted())
+                ex.printStackTrace();
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Downloads the file as {@link FileDownload#start()} does, failures are
+     * thrown. A cancelled download throws an InterruptedIOException
+     */
+    void run() throws IOException {
+        cancelled = false;
+        
+        if (!resume)
+            deletePartialFile();
+        
+        digest = null;
+        digestedBytes = 0;
+        if (expectedChecksum != null)
+            try {
+                digest = MessageDigest.getInstance(checksumAlgorithm);
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IOException(ex);
+            }
+        
+        for (int attempt = 1; ; attempt++)
+            try {
+                if (download())
+                    break;
+                
+                throw new InterruptedIOException("Download of '" + url + "' cancelled at " + downloadedBytes + " bytes");
+            } catch (IOException ex) {
+                // Client errors, like 404, won't change by trying again
+                if (attempt >= attempts || cancelled || Thread.currentThread().isInterrupted() || (ex instanceof HttpStatusException && ((HttpStatusException) ex).code < 500))
+                    throw ex;
+                
+                System.out.println("[INFO] Download of '" + url + "' interrupted at " + downloadedBytes + " bytes, retrying (" + ex + ")");
+            }
+        
+        if (expectedChecksum != null) {
+            String checksum = hexDigest();
+            if (!checksum.equalsIgnoreCase(expectedChecksum.trim())) {
+                deletePartialFile();
+                throw new IOException("Checksum of '" + url + "' is " + checksum + ", expected " + expectedChecksum);
+            }
+        }
+        
+        FileUtilities.replaceFile(partialFile, outputFile.toPath());
+        Files.deleteIfExists(validatorFile);
+    }
+    
+    /**
+     * Connects and appends the rest of the file to the partial file
+     * 
+     * @return false if the download was cancelled
+     */
+    private boolean download() throws IOException {
+        long offset = Files.exists(partialFile) ? Files.size(partialFile) : 0;
+        
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        
+        HttpURLConnection http = connection instanceof HttpURLConnection ? (HttpURLConnection) connection : null;
+        if (http != null && offset > 0) {
+            http.setRequestProperty("Range", "bytes=" + offset + "-");
+            
+            // The range is ignored if the file changed on the server
+            String validator = Files.exists(validatorFile) ? new String(Files.readAllBytes(validatorFile), "UTF-8") : "";
+            if (!validator.isEmpty())
+                http.setRequestProperty("If-Range", validator);
+        }
+        
+        try {
+            int code = http != null ? http.getResponseCode() : 200;
+            
+            if (http != null && code == 416 && offset > 0 && offset == rangeTotal(http)) {
+                // The partial file is already complete
+                updateDigest(offset);
+                reportProgress(offset, offset);
+                return true;
+            }
+            
+            if (http != null && code != 200 && code != 206)
+                throw new HttpStatusException(code, url);
+            
+            if (code == 200)
+                offset = 0;
+            else if (code == 206 && rangeStart(http) != offset)
+                throw new IOException("Server sent a range that doesn't start at " + offset);
+            
+            updateDigest(offset);
+            
+            long length = connection.getContentLengthLong();
+            totalBytes = length < 0 ? -1 : offset + length;
+            
+            if (http != null)
+                saveValidator(http);
+            
+            StandardOpenOption mode = offset > 0 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+            
+            try (InputStream inputStream = connection.getInputStream();
+                    OutputStream outputStream = Files.newOutputStream(partialFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+                byte [] buffer = FileUtilities.acquireBuffer();
+                long received = offset;
+                reportProgress(received, totalBytes);
+                
+                try {
+                    int bytesRead;
+                    while ((bytesRead = inputStream.read(buffer)) != -1) {
+                        if (cancelled || Thread.currentThread().isInterrupted())
+                            return false;
+                        
+                        outputStream.write(buffer, 0, bytesRead);
+                        
+                        if (digest != null) {
+                            digest.update(buffer, 0, bytesRead);
+                            digestedBytes += bytesRead;
+                        }
+                        
+                        received += bytesRead;
+                        reportProgress(received, totalBytes);
+                    }
+                } finally {
+                    FileUtilities.releaseBuffer(buffer);
+                }
+                
+                if (totalBytes >= 0 && received < totalBytes)
+                    throw new IOException("Connection closed at " + received + " of " + totalBytes + " bytes");
+            }
+            
+            return true;
+        } finally {
+            if (http != null)
+                http.disconnect();
+        }
+    }
+    
+    /**
+     * @return the total size in a <code>Content-Range: bytes &#42;/size</code>
+     * header or -1
+     */
+    private static long rangeTotal(HttpURLConnection http) {
+        String range = http.getHeaderField("Content-Range");
+        if (range == null || range.indexOf('/') == -1)
+            return -1;
+        
+        try {
+            return Long.parseLong(range.substring(range.indexOf('/') + 1).trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+    
+    /**
+     * @return the first byte in a <code>Content-Range: bytes start-end/size</code>
+     * header or -1
+     */
+    private static long rangeStart(HttpURLConnection http) {
+        String range = http.getHeaderField("Content-Range");
+        if (range == null || !range.startsWith("bytes ") || range.indexOf('-') == -1)
+            return -1;
+        
+        try {
+            return Long.parseLong(range.substring(6, range.indexOf('-')).trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+    
+    private void saveValidator(HttpURLConnection http) throws IOException {
+        String validator = http.getHeaderField("ETag");
+        if (validator == null || validator.startsWith("W/"))
+            validator = http.getHeaderField("Last-Modified");
+        
+        if (validator == null)
+            Files.deleteIfExists(validatorFile);
+        else
+            Files.write(validatorFile, validator.getBytes("UTF-8"));
+    }
+    
+    private void reportProgress(long received, long total) {
+        downloadedBytes = received;
+        
+        if (listener != null)
+            listener.progressChanged(received, total);
+    }
+    
+    /**
+     * Brings the digest to the first <code>offset</code> bytes of the partial
+     * file, only bytes written by a previous run are read
+     */
+    private void updateDigest(long offset) throws IOException {
+        if (digest == null)
+            return;
+        
+        if (offset < digestedBytes) {
+            digest.reset();
+            digestedBytes = 0;
+        }
+        
+        if (offset == digestedBytes)
+            return;
+        
+        byte [] buffer = FileUtilities.acquireBuffer();
+        try (InputStream inputStream = Files.newInputStream(partialFile)) {
+            long skipped = 0;
+            while (skipped < digestedBytes)
+                skipped += inputStream.skip(digestedBytes - skipped);
+            
+            int bytesRead;
+            while (digestedBytes < offset && (bytesRead = inputStream.read(buffer, 0, (int) Math.min(buffer.length, offset - digestedBytes))) != -1) {
+                digest.update(buffer, 0, bytesRead);
+                digestedBytes += bytesRead;
+            }
+        } finally {
+            FileUtilities.releaseBuffer(buffer);
+        }
+    }
+    
+    private String hexDigest() {
+        StringBuilder checksum = new StringBuilder();
+        for (byte b : digest.digest())
+            checksum.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        
+        return checksum.toString();
+    }
+    
+    private void deletePartialFile() throws IOException {
+        Files.deleteIfExists(partialFile);
+        Files.deleteIfExists(validatorFile);
+    }
+}
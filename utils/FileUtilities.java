@@ -1,18 +1,43 @@
 package utils;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -84,22 +109,63 @@ public class FileUtilities {
     }
     
     /**
-     * Reads a plain text file
+     * Size in bytes of the buffers used to copy streams
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * Bytes transferred between files at once, progress is reported after
+     * each transfer
+     */
+    private static final long TRANSFER_SIZE = 8 * 1024 * 1024;
+    
+    /**
+     * Buffers of {@link FileUtilities#BUFFER_SIZE} bytes ready to be reused
+     */
+    private static final ArrayBlockingQueue<byte []> bufferPool = new ArrayBlockingQueue<>(8);
+    
+    /**
+     * Maximum number of threads used to extract or create a zip archive
+     */
+    public static final int ZIP_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    
+    /**
+     * Files bigger than this, in bytes, are memory mapped by
+     * {@link FileUtilities#readFile(java.io.File, java.nio.charset.Charset)}
+     * instead of being copied into the heap before decoding
+     */
+    private static volatile long mappedReadThreshold = 8 * 1024 * 1024;
+    
+    /**
+     * Reads a plain text file with the platform default charset
      * 
      * @param file file path
-     * @return an string of file contents
+     * @return an string of file contents, every line ends with <code>'\n'</code>
+     * @see FileUtilities#readFile(java.io.File, java.nio.charset.Charset)
      */
     public static String readFile(File file) {
+        return readFile(file, Charset.defaultCharset());
+    }
+    
+    /**
+     * Reads a plain text file<br>
+     * Line terminators (<code>"\r\n"</code>, <code>'\r'</code> and
+     * <code>'\n'</code>) are replaced by <code>'\n'</code> and the last line
+     * always ends with one. Files bigger than {@link FileUtilities#getMappedReadThreshold()}
+     * are memory mapped.<br>
+     * For very large files, use {@link FileUtilities#readLines(java.io.File, java.nio.charset.Charset)}
+     * 
+     * @param file file path
+     * @param charset the charset of the file, malformed data is replaced
+     * @return an string of file contents or an empty string if the file
+     * can't be read
+     */
+    public static String readFile(File file, Charset charset) {
         if (!file.exists() || !file.canRead())
             return "";
         
-        String data = "";
-
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file))) {
-            while (bufferedReader.ready())
-                data += bufferedReader.readLine() + "\n";
-            
-            return data;
+        try {
+            return doReadFile(file, charset);
         } catch (IOException ex) {
             ex.printStackTrace();
         }
@@ -107,6 +173,97 @@ public class FileUtilities {
         return "";
     }
     
+    /**
+     * Reads a plain text file as {@link FileUtilities#readFile(java.io.File, java.nio.charset.Charset)}
+     * does, failures are thrown
+     */
+    static String doReadFile(File file, Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File '" + file + "' is too big to be read as a string");
+            
+            ByteBuffer bytes;
+            if (size == 0) {
+                // Pipes and pseudo files like the ones in /proc report no size
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                copy(Channels.newInputStream(channel), outputStream, -1, null);
+                bytes = ByteBuffer.wrap(outputStream.toByteArray());
+            } else if (size > mappedReadThreshold)
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            else {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining() && channel.read(bytes) != -1);
+                bytes.flip();
+            }
+            
+            CharBuffer data = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes);
+            
+            return normalizeLineTerminators(data);
+        }
+    }
+    
+    private static String normalizeLineTerminators(CharBuffer data) {
+        int length = data.remaining();
+        StringBuilder text = new StringBuilder(length + 1);
+        
+        // Text between '\r's is copied in bulk
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (data.get(i) != '\r')
+                continue;
+            
+            text.append(data, start, i).append('\n');
+            if (i + 1 < length && data.get(i + 1) == '\n')
+                i++;
+            
+            start = i + 1;
+        }
+        text.append(data, start, length);
+        
+        if (text.length() > 0 && text.charAt(text.length() - 1) != '\n')
+            text.append('\n');
+        
+        return text.toString();
+    }
+    
+    /**
+     * Opens a plain text file to be read line by line, only a small buffer
+     * is kept in memory
+     * 
+     * @param file file path
+     * @param charset the charset of the file, malformed data is replaced
+     * @return the lines of the file, it must be closed
+     * @throws IOException if the file can't be opened
+     */
+    public static LineIterator readLines(File file, Charset charset) throws IOException {
+        return new LineIterator(new BufferedReader(new InputStreamReader(Files.newInputStream(file.toPath()), charset)));
+    }
+    
+    /**
+     * @return the size in bytes from which files are memory mapped to be read
+     */
+    public static long getMappedReadThreshold() {
+        return mappedReadThreshold;
+    }
+    
+    /**
+     * Sets the size in bytes from which files are memory mapped to be read,
+     * <code>Long.MAX_VALUE</code> disables memory mapping
+     * 
+     * @param threshold the size in bytes
+     * @throws IllegalArgumentException if threshold is negative
+     */
+    public static void setMappedReadThreshold(long threshold) throws IllegalArgumentException {
+        if (threshold < 0)
+            throw new IllegalArgumentException("Threshold cannot be negative");
+        
+        mappedReadThreshold = threshold;
+    }
+    
     /**
      * Loads a file bundled in a JAR as an <code>InputStream</code>.<br>
      * For a file <code>data.zip</code> in the package <code>myapp.ui.assets</code>,
@@ -130,9 +287,8 @@ public class FileUtilities {
      * @return true if success otherwise false
      */
     public static boolean writeFile(File file, String data) {
-        try (FileWriter fileWriter = new FileWriter(file)) {
-            fileWriter.write(data);
-            
+        try {
+            doWriteFile(file, data);
             return true;
         } catch (IOException ex) {
             ex.printStackTrace();
@@ -142,7 +298,20 @@ public class FileUtilities {
     }
     
     /**
-     * Writes a binary file in chucks of 1024 bytes
+     * Writes a plain text file as {@link FileUtilities#writeFile(java.io.File, java.lang.String)}
+     * does, failures are thrown
+     */
+    static void doWriteFile(File file, String data) throws IOException {
+        try (FileWriter fileWriter = new FileWriter(file)) {
+            fileWriter.write(data);
+        }
+    }
+    
+    /**
+     * Writes a binary file<br>
+     * If inputStream is a <code>FileInputStream</code> the data is transferred
+     * between both files by the system, otherwise it's copied in chunks of
+     * {@link FileUtilities#BUFFER_SIZE} bytes
      * 
      * @param inputStream the input stream file
      * @param outputFile the destiny
@@ -150,13 +319,29 @@ public class FileUtilities {
      * @return true if success otherwise false
      */
     public static boolean writeFile(InputStream inputStream, File outputFile, boolean closeInputStream) {
+        return writeFile(inputStream, outputFile, closeInputStream, null);
+    }
+    
+    /**
+     * Writes a binary file<br>
+     * If inputStream is a <code>FileInputStream</code> the data is transferred
+     * between both files by the system, otherwise it's copied in chunks of
+     * {@link FileUtilities#BUFFER_SIZE} bytes
+     * 
+     * @param inputStream the input stream file
+     * @param outputFile the destiny
+     * @param closeInputStream if true, inputStream will be closed
+     * @param listener notified with the bytes written, the total is only known
+     * for <code>FileInputStream</code>s. It can be null
+     * @return true if success otherwise false
+     */
+    public static boolean writeFile(InputStream inputStream, File outputFile, boolean closeInputStream, ProgressListener listener) {
         try (FileOutputStream fileOutputStream = new FileOutputStream(outputFile)) {
-
-            byte [] dataBuffer = new byte[1024];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(dataBuffer, 0, 1024)) != -1)
-                fileOutputStream.write(dataBuffer, 0, bytesRead);
-
+            if (inputStream instanceof FileInputStream)
+                transfer(((FileInputStream) inputStream).getChannel(), fileOutputStream.getChannel(), listener);
+            else
+                copy(inputStream, fileOutputStream, -1, listener);
+            
             return true;
         } catch (IOException ex) {
             ex.printStackTrace();
@@ -169,15 +354,39 @@ public class FileUtilities {
     }
     
     /**
-     * Downloads a file from a URL, <b>**this will overwrite the output file if exist**</b>
+     * Copies a file, <b>**this will overwrite the target file if exist**</b>
      * 
-     * @param url the URL to retrieve the content
-     * @param outputFile where the file should be saved
+     * @param source the file to copy
+     * @param target the copy
      * @return true if success otherwise false
+     * @see FileUtilities#copyFile(java.io.File, java.io.File, boolean, utils.ProgressListener)
      */
-    public static boolean downloadFile(String url, File outputFile) {
-        try (BufferedInputStream in = new BufferedInputStream(new URL(url).openStream())) {
-            return writeFile(in, outputFile, true);
+    public static boolean copyFile(File source, File target) {
+        return copyFile(source, target, false, null);
+    }
+    
+    /**
+     * Copies a file, <b>**this will overwrite the target file if exist**</b><br>
+     * The data is transferred between both files by the system, it doesn't
+     * go through the Java heap.<br><br>
+     * 
+     * With atomicReplace the copy is written to a temporary file next to
+     * the target, which then replaces it. If the copy fails the target is
+     * left untouched and nobody can see it half written.<br>
+     * If source and target are the same file, even through a link, nothing
+     * is copied.
+     * 
+     * @param source the file to copy
+     * @param target the copy
+     * @param atomicReplace if true, the target is replaced only after the
+     * copy is complete
+     * @param listener notified with the bytes copied, it can be null
+     * @return true if success otherwise false
+     */
+    public static boolean copyFile(File source, File target, boolean atomicReplace, ProgressListener listener) {
+        try {
+            doCopyFile(source, target, atomicReplace, listener);
+            return true;
         } catch (IOException ex) {
             ex.printStackTrace();
         }
@@ -185,6 +394,176 @@ public class FileUtilities {
         return false;
     }
     
+    /**
+     * Copies a file as {@link FileUtilities#copyFile(java.io.File, java.io.File, boolean, utils.ProgressListener)}
+     * does, failures are thrown
+     */
+    static void doCopyFile(File source, File target, boolean atomicReplace, ProgressListener listener) throws IOException {
+        Path targetPath = target.getAbsoluteFile().toPath();
+        Path temporary = null;
+        
+        // Opening the target would truncate the source, like Files.copy
+        // nothing is done
+        if (Files.exists(targetPath) && Files.isSameFile(source.toPath(), targetPath))
+            return;
+        
+        try (FileChannel input = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            if (atomicReplace)
+                temporary = createTemporaryFile(targetPath);
+            
+            try (FileChannel output = FileChannel.open(atomicReplace ? temporary : targetPath,
+                    StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                transfer(input, output, listener);
+                
+                if (atomicReplace)
+                    output.force(true);
+            }
+            
+            if (atomicReplace)
+                replaceFile(temporary, targetPath);
+        } catch (IOException ex) {
+            if (temporary != null)
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ex1) {
+                    ex.addSuppressed(ex1);
+                }
+            
+            throw ex;
+        }
+    }
+    
+    /**
+     * Transfers the rest of input, from its current position, to output<br>
+     * Pipes, devices and pseudo files like the ones in <code>/proc</code>
+     * report a size of zero, they're copied until the end of the data
+     */
+    private static long transfer(FileChannel input, FileChannel output, ProgressListener listener) throws IOException {
+        if (input.size() == 0)
+            return copy(Channels.newInputStream(input), Channels.newOutputStream(output), -1, listener);
+        
+        long start = input.position();
+        long total = input.size() - start;
+        long transferred = 0;
+        
+        while (transferred < total) {
+            long count = input.transferTo(start + transferred, Math.min(TRANSFER_SIZE, total - transferred), output);
+            if (count <= 0)
+                break;
+            
+            transferred += count;
+            if (listener != null)
+                listener.progressChanged(transferred, total);
+        }
+        
+        input.position(start + transferred);
+        
+        return transferred;
+    }
+    
+    /**
+     * Copies inputStream into outputStream with a pooled buffer, the copy
+     * stops if the thread is interrupted
+     * 
+     * @param total the expected bytes or -1, only passed to listener
+     * @return the bytes copied
+     */
+    static long copy(InputStream inputStream, OutputStream outputStream, long total, ProgressListener listener) throws IOException {
+        byte [] buffer = acquireBuffer();
+        long copied = 0;
+        
+        try {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                if (Thread.currentThread().isInterrupted())
+                    throw new InterruptedIOException("Copy interrupted after " + copied + " bytes");
+                
+                outputStream.write(buffer, 0, bytesRead);
+                
+                copied += bytesRead;
+                if (listener != null)
+                    listener.progressChanged(copied, total);
+            }
+        } finally {
+            releaseBuffer(buffer);
+        }
+        
+        return copied;
+    }
+    
+    /**
+     * @return a buffer of {@link FileUtilities#BUFFER_SIZE} bytes, give it
+     * back with {@link FileUtilities#releaseBuffer(byte[])}
+     */
+    static byte [] acquireBuffer() {
+        byte [] buffer = bufferPool.poll();
+        
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+    
+    static void releaseBuffer(byte [] buffer) {
+        bufferPool.offer(buffer);
+    }
+    
+    /**
+     * Creates an empty temporary file in the directory of target, with the
+     * same permissions as target if it exists
+     */
+    static Path createTemporaryFile(Path target) throws IOException {
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        
+        try {
+            if (Files.exists(target))
+                Files.setPosixFilePermissions(temporary, Files.getPosixFilePermissions(target));
+        } catch (UnsupportedOperationException ex) {
+            // Not a POSIX file system
+        }
+        
+        return temporary;
+    }
+    
+    /**
+     * Moves temporary over target, atomically if the file system allows it
+     */
+    static void replaceFile(Path temporary, Path target) throws IOException {
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * Downloads a file from a URL, <b>**this will overwrite the output file if exist**</b>
+     * 
+     * @param url the URL to retrieve the content
+     * @param outputFile where the file should be saved
+     * @return true if success otherwise false
+     * @see FileDownload
+     */
+    public static boolean downloadFile(String url, File outputFile) {
+        return downloadFile(url, outputFile, null);
+    }
+    
+    /**
+     * Downloads a file from a URL, <b>**this will overwrite the output file if exist**</b><br>
+     * Connections time out after {@link FileDownload#DEFAULT_READ_TIMEOUT}
+     * milliseconds without data, interrupted downloads are resumed up to
+     * {@link FileDownload#DEFAULT_ATTEMPTS} times.
+     * 
+     * @param url the URL to retrieve the content
+     * @param outputFile where the file should be saved
+     * @param listener notified with the bytes received, it can be null
+     * @return true if success otherwise false
+     * @see FileDownload
+     */
+    public static boolean downloadFile(String url, File outputFile, ProgressListener listener) {
+        FileDownload download = new FileDownload(url, outputFile);
+        download.setProgressListener(listener);
+        
+        return download.start();
+    }
+    
     /**
      * Creates an array containing all files and directories inside a zip file
      * 
@@ -199,20 +578,20 @@ public class FileUtilities {
             if (inputFile.isDirectory())
                 return null;
             
-            ZipFile zip = new ZipFile(inputFile);
-            
-            ArrayList<String> files = new ArrayList<>();
-            
-            Enumeration<? extends ZipEntry> entries = zip.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry e = entries.nextElement();
-                if (!includeDirectories && e.isDirectory())
-                    continue;
+            try (ZipFile zip = new ZipFile(inputFile)) {
+                ArrayList<String> files = new ArrayList<>();
+                
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry e = entries.nextElement();
+                    if (!includeDirectories && e.isDirectory())
+                        continue;
+                    
+                    files.add(e.getName());
+                }
                 
-                files.add(e.getName());
+                return files.toArray(new String[files.size()]);
             }
-            
-            return files.toArray(new String[files.size()]);
         } catch (IOException ex) {
             ex.printStackTrace();
         }
@@ -236,15 +615,16 @@ public class FileUtilities {
             if (inputFile.isDirectory())
                 return false;
             
-            ZipFile zip = new ZipFile(inputFile);
-            ZipEntry e = zip.getEntry(relativePath);
-            
-            if (e == null)
-                throw new FileNotFoundException("Relative path '" + relativePath + "' not found in zip file");
-            if (e.isDirectory())
-                return false;
-            
-            return writeFile(zip.getInputStream(e), outputFile, true);
+            try (ZipFile zip = new ZipFile(inputFile)) {
+                ZipEntry e = zip.getEntry(relativePath);
+                
+                if (e == null)
+                    throw new FileNotFoundException("Relative path '" + relativePath + "' not found in zip file");
+                if (e.isDirectory())
+                    return false;
+                
+                return writeFile(zip.getInputStream(e), outputFile, true);
+            }
         } catch (IOException ex) {
             ex.printStackTrace();
         }
@@ -258,41 +638,345 @@ public class FileUtilities {
      * @param inputFile the zip archive to extract from
      * @param outputPath the directory where all files will be extracted
      * @return true if success otherwise false
+     * @see FileUtilities#extractAllZippedFiles(java.io.File, java.io.File, utils.ProgressListener, utils.ZipEntryListener)
      */
     public static boolean extractAllZippedFiles(File inputFile, File outputPath) {
+        return extractAllZippedFiles(inputFile, outputPath, null, null);
+    }
+    
+    /**
+     * Extracts all files from a zip archive<br>
+     * The archive is opened once and its entries are decompressed in parallel
+     * by up to {@link FileUtilities#ZIP_THREADS} threads. Entries whose path
+     * would end outside outputPath (e.g. <code>../../.bashrc</code>) make the
+     * extraction fail before anything is written.<br><br>
+     * 
+     * Listeners are called from the extracting threads, possibly at the same
+     * time. To show the progress in a {@link ui.ProgressBar} use
+     * {@link ui.ProgressBar#createProgressListener()}
+     * 
+     * @param inputFile the zip archive to extract from
+     * @param outputPath the directory where all files will be extracted
+     * @param listener notified with the bytes extracted of all entries, it
+     * can be null
+     * @param entryListener notified after every entry is extracted, it can
+     * be null
+     * @return true if success otherwise false, some files may have been
+     * extracted if it fails but none is left half written. If the calling
+     * thread is interrupted the extraction stops and its interrupt status is
+     * kept
+     */
+    public static boolean extractAllZippedFiles(File inputFile, File outputPath, ProgressListener listener, ZipEntryListener entryListener) {
+        if (inputFile.isDirectory() || outputPath.isFile())
+            return false;
+        
         try {
-            if (inputFile.isDirectory())
-                return false;
-            
-            if (outputPath.isFile())
-                return false;
+            doExtractAllZippedFiles(inputFile, outputPath, listener, entryListener);
+            return true;
+        } catch (IOException ex) {
+            if (!(ex instanceof InterruptedIOException))
+                ex.printStackTrace();
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Extracts all files from a zip archive as {@link FileUtilities#extractAllZippedFiles(java.io.File, java.io.File, utils.ProgressListener, utils.ZipEntryListener)}
+     * does, failures are thrown. An interruption is thrown as an
+     * InterruptedIOException and the interrupt status is kept
+     */
+    static void doExtractAllZippedFiles(File inputFile, File outputPath, ProgressListener listener, ZipEntryListener entryListener) throws IOException {
+        if (inputFile.isDirectory())
+            throw new IOException("'" + inputFile + "' is a directory");
+        if (outputPath.isFile())
+            throw new IOException("'" + outputPath + "' is a file");
+        
+        try (ZipFile zip = new ZipFile(inputFile)) {
+            Path root = outputPath.getAbsoluteFile().toPath().normalize();
             
-            ZipFile zip = new ZipFile(inputFile);
+            ArrayList<ZipEntry> entries = new ArrayList<>(zip.size());
+            ArrayList<Path> targets = new ArrayList<>(zip.size());
+            HashSet<Path> directories = new HashSet<>();
+            directories.add(root);
+            long total = 0;
             
-            Enumeration<? extends ZipEntry> entries = zip.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry e = entries.nextElement();
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry e = zipEntries.nextElement();
                 
-                File file = joinPath(outputPath, e.getName());
+                Path target = root.resolve(e.getName()).normalize();
+                if (!target.startsWith(root))
+                    throw new IOException("Entry '" + e.getName() + "' is outside of '" + root + "'");
                 
                 if (e.isDirectory()) {
-                    file.mkdir();
+                    directories.add(target);
                     continue;
                 }
                 
-                InputStream inputStream = zip.getInputStream(e);
-                if (!writeFile(inputStream, file, true))
-                    return false;
+                directories.add(target.getParent());
+                entries.add(e);
+                targets.add(target);
+                
+                total = total < 0 || e.getSize() < 0 ? -1 : total + e.getSize();
             }
             
+            // Directories are created before any thread starts writing
+            for (Path directory : directories)
+                Files.createDirectories(directory);
+            
+            int threads = Math.min(ZIP_THREADS, entries.size());
+            if (threads == 0)
+                return;
+            
+            long totalBytes = total;
+            AtomicLong extractedBytes = new AtomicLong();
+            AtomicInteger nextEntry = new AtomicInteger();
+            AtomicInteger extractedEntries = new AtomicInteger();
+            
+            ExecutorService executor = Executors.newFixedThreadPool(threads, (r) -> {
+                Thread t = new Thread(r, "FileUtilities-zip");
+                t.setDaemon(true);
+                return t;
+            });
+            
+            ArrayList<Future<?>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++)
+                workers.add(executor.submit(() -> {
+                    int index;
+                    while ((index = nextEntry.getAndIncrement()) < entries.size()) {
+                        ZipEntry e = entries.get(index);
+                        
+                        ProgressListener entryProgress = null;
+                        if (listener != null) {
+                            long [] reported = new long[1];
+                            entryProgress = (processed, entryTotal) -> {
+                                listener.progressChanged(extractedBytes.addAndGet(processed - reported[0]), totalBytes);
+                                reported[0] = processed;
+                            };
+                        }
+                        
+                        Path target = targets.get(index);
+                        try (InputStream inputStream = zip.getInputStream(e);
+                                OutputStream outputStream = Files.newOutputStream(target)) {
+                            copy(inputStream, outputStream, e.getSize(), entryProgress);
+                        } catch (IOException | RuntimeException ex) {
+                            Files.deleteIfExists(target);
+                            throw ex;
+                        }
+                        
+                        int extracted = extractedEntries.incrementAndGet();
+                        if (entryListener != null)
+                            entryListener.entryProcessed(e.getName(), extracted, entries.size());
+                    }
+                    
+                    return null;
+                }));
+            
+            Throwable failure = null;
+            try {
+                for (Future<?> worker : workers)
+                    try {
+                        worker.get();
+                    } catch (ExecutionException ex) {
+                        // The other workers stop taking entries
+                        nextEntry.set(entries.size());
+                        if (failure == null)
+                            failure = ex.getCause();
+                    }
+            } finally {
+                // All workers must finish before the archive is closed
+                shutdownAndWait(executor);
+            }
+            
+            if (failure != null)
+                throw failure instanceof IOException ? (IOException) failure : new IOException(failure);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extraction of '" + inputFile + "' interrupted");
+        }
+    }
+    
+    /**
+     * Interrupts the tasks of executor and waits until all of them stop, an
+     * interruption while waiting is kept for the calling thread
+     */
+    private static void shutdownAndWait(ExecutorService executor) {
+        executor.shutdownNow();
+        
+        boolean interrupted = false;
+        while (!executor.isTerminated())
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+    
+    /**
+     * Creates a zip archive with the contents of a directory
+     * 
+     * @param directory the directory to compress
+     * @param outputFile the zip archive
+     * @return true if success otherwise false
+     * @see FileUtilities#zipDirectory(java.io.File, java.io.File, utils.ProgressListener, utils.ZipEntryListener)
+     */
+    public static boolean zipDirectory(File directory, File outputFile) {
+        return zipDirectory(directory, outputFile, null, null);
+    }
+    
+    /**
+     * Creates a zip archive with the contents of a directory, <b>**this will
+     * overwrite the output file if exist**</b><br>
+     * Entry names are relative to directory, which is not included. Files
+     * are compressed in parallel by up to {@link FileUtilities#ZIP_THREADS}
+     * threads while a single writer adds them to the archive in the order
+     * they're found; only a few files are kept in memory at once, no matter
+     * how many the directory has.<br><br>
+     * 
+     * The archive is written to a temporary file that replaces outputFile
+     * once it's complete. Listeners are called from the thread calling this
+     * method.
+     * 
+     * @param directory the directory to compress
+     * @param outputFile the zip archive
+     * @param listener notified with the bytes of all files compressed so
+     * far, it can be null
+     * @param entryListener notified after every entry is written, it can
+     * be null
+     * @return true if success otherwise false. If the calling thread is
+     * interrupted the archive is discarded and its interrupt status is kept
+     */
+    public static boolean zipDirectory(File directory, File outputFile, ProgressListener listener, ZipEntryListener entryListener) {
+        if (!directory.isDirectory() || outputFile.isDirectory())
+            return false;
+        
+        try {
+            doZipDirectory(directory, outputFile, listener, entryListener);
             return true;
         } catch (IOException ex) {
-            ex.printStackTrace();
+            if (!(ex instanceof InterruptedIOException))
+                ex.printStackTrace();
         }
         
         return false;
     }
     
+    /**
+     * Creates a zip archive as {@link FileUtilities#zipDirectory(java.io.File, java.io.File, utils.ProgressListener, utils.ZipEntryListener)}
+     * does, failures are thrown. An interruption is thrown as an
+     * InterruptedIOException and the interrupt status is kept
+     */
+    static void doZipDirectory(File directory, File outputFile, ProgressListener listener, ZipEntryListener entryListener) throws IOException {
+        if (!directory.isDirectory())
+            throw new IOException("'" + directory + "' is not a directory");
+        if (outputFile.isDirectory())
+            throw new IOException("'" + outputFile + "' is a directory");
+        
+        Path root = directory.getAbsoluteFile().toPath().normalize();
+        Path target = outputFile.getAbsoluteFile().toPath().normalize();
+        Path temporary = null;
+        ExecutorService executor = null;
+        
+        try {
+            // The directory is walked twice, once to know the totals
+            long totalBytes = 0;
+            int totalEntries = 0;
+            
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Iterator<Path> iterator = paths.iterator(); iterator.hasNext();) {
+                    Path path = iterator.next();
+                    if (path.equals(root) || path.equals(target))
+                        continue;
+                    
+                    if (Files.isRegularFile(path))
+                        totalBytes += Files.size(path);
+                    totalEntries++;
+                }
+            }
+            
+            temporary = createTemporaryFile(target);
+            Path temporaryFile = temporary;
+            
+            executor = Executors.newFixedThreadPool(ZIP_THREADS, (r) -> {
+                Thread t = new Thread(r, "FileUtilities-zip");
+                t.setDaemon(true);
+                return t;
+            });
+            
+            // Entries compressed ahead of the writer
+            int window = ZIP_THREADS * 4;
+            ArrayDeque<Future<ZipArchiveWriter.Entry>> pending = new ArrayDeque<>(window);
+            long writtenBytes = 0;
+            int writtenEntries = 0;
+            
+            try (ZipArchiveWriter writer = new ZipArchiveWriter(temporary); Stream<Path> paths = Files.walk(root)) {
+                Iterator<Path> iterator = paths.iterator();
+                
+                while (iterator.hasNext() || !pending.isEmpty()) {
+                    if (iterator.hasNext() && pending.size() < window) {
+                        Path path = iterator.next();
+                        if (!path.equals(root) && !path.equals(target) && !path.equals(temporaryFile))
+                            pending.add(executor.submit(() -> ZipArchiveWriter.prepareEntry(root, path)));
+                        
+                        continue;
+                    }
+                    
+                    ZipArchiveWriter.Entry entry;
+                    try {
+                        entry = pending.poll().get();
+                    } catch (ExecutionException ex) {
+                        throw ex.getCause() instanceof IOException ? (IOException) ex.getCause() : new IOException(ex.getCause());
+                    }
+                    
+                    ProgressListener entryProgress = null;
+                    if (listener != null) {
+                        long written = writtenBytes;
+                        long total = totalBytes;
+                        entryProgress = (processed, entryTotal) -> listener.progressChanged(written + processed, Math.max(total, written + processed));
+                    }
+                    
+                    writtenBytes += writer.write(entry, entryProgress);
+                    writtenEntries++;
+                    
+                    if (listener != null && entry.data != null)
+                        listener.progressChanged(writtenBytes, Math.max(totalBytes, writtenBytes));
+                    if (entryListener != null)
+                        entryListener.entryProcessed(entry.getName(), writtenEntries, Math.max(totalEntries, writtenEntries));
+                }
+                
+                writer.finish();
+            } finally {
+                for (Future<?> future : pending)
+                    future.cancel(true);
+            }
+            
+            replaceFile(temporary, target);
+        } catch (IOException | InterruptedException ex) {
+            IOException failure;
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                failure = new InterruptedIOException("Compression of '" + directory + "' interrupted");
+            } else
+                failure = (IOException) ex;
+            
+            if (temporary != null)
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ex1) {
+                    failure.addSuppressed(ex1);
+                }
+            
+            throw failure;
+        } finally {
+            if (executor != null)
+                shutdownAndWait(executor);
+        }
+    }
+    
     /**
      * Lists files given a directory, this method will check if <code>path</code>
      * is a directory and it's readable
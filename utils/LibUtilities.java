@@ -6,9 +6,7 @@ import java.awt.FileDialog;
 import java.awt.Font;
 import java.awt.Image;
 import java.awt.Toolkit;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.Rectangle2D;
+import java.awt.event.InputEvent;
 import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
@@ -17,12 +15,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Base64.Decoder;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import javax.imageio.ImageIO;
 import javax.swing.AbstractAction;
 import javax.swing.ImageIcon;
@@ -31,6 +33,7 @@ import javax.swing.JFrame;
 import javax.swing.KeyStroke;
 import ui.UIProperties;
 import ui.Window;
+import ui.enums.RenderingQuality;
 
 /**
  * General utilities
@@ -43,7 +46,8 @@ public class LibUtilities {
      */
     public static enum Preferences {
         APPEARANCE, USE_ACCENT_COLORS, PRIMARY_COLOR, SECONDARY_COLOR, FOREGROUND_COLOR, 
-        FONT_FAMILY, TITLE_FONT_WIDTH, SUBTITLE_FONT_WIDTH, STANDARD_FONT_WIDTH, UI_SCALE
+        FONT_FAMILY, TITLE_FONT_WIDTH, SUBTITLE_FONT_WIDTH, STANDARD_FONT_WIDTH, UI_SCALE, 
+        RENDERING_QUALITY
     }
     
     /**
@@ -95,26 +99,46 @@ public class LibUtilities {
         DEFAULT_PREFERENCES.put(Preferences.SUBTITLE_FONT_WIDTH.name(), "18");
         DEFAULT_PREFERENCES.put(Preferences.STANDARD_FONT_WIDTH.name(), "13");
         DEFAULT_PREFERENCES.put(Preferences.UI_SCALE.name(), "1.0");
+        DEFAULT_PREFERENCES.put(Preferences.RENDERING_QUALITY.name(), RenderingQuality.QUALITY.name());
         
         preferences = DEFAULT_PREFERENCES;
         
-        loadDefaultPreferences();
-        
         System.out.println("[INFO] libBasicUI v0.0.9");
         System.out.println("[INFO] LibUtilities initialized!");
     }
     
     
     private static final Decoder decoder = Base64.getDecoder();
-    private static final FileDialog fileDialog = new FileDialog((JFrame) null, "Select a file", FileDialog.LOAD);
     
-    private static final AffineTransform affinetransform = new AffineTransform();     
-    private static final FontRenderContext frc = new FontRenderContext(affinetransform, true, true);
+    /**
+     * The FileDialog is only created the first time it's needed, creating it
+     * initializes AWT
+     */
+    private static final class FileDialogHolder {
+        private static final FileDialog fileDialog = new FileDialog((JFrame) null, "Select a file", FileDialog.LOAD);
+    }
+    
+    private static final class ToolkitHolder {
+        private static final int menuShortcutKeyMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
+    }
     
     /**
-     * Modifier key
+     * Modifier key, the value <code>Toolkit.getMenuShortcutKeyMask()</code>
+     * returns, known without initializing AWT<br>
+     * It's a legacy modifier, compare it with <code>InputEvent.getModifiers()</code>.
+     * For extended modifiers use {@link LibUtilities#MOD_KEY_EX}
      */
-    public static final int MOD_KEY = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
+    // InputEvent.META_MASK (4) on macOS, InputEvent.CTRL_MASK (2) elsewhere
+    public static final int MOD_KEY = IS_MACOS ? 4 : 2;
+    
+    /**
+     * Extended modifier key (<code>META_DOWN_MASK</code> or
+     * <code>CTRL_DOWN_MASK</code>), compare it with
+     * <code>InputEvent.getModifiersEx()</code> or use it in a KeyStroke
+     * 
+     * @see LibUtilities#MOD_KEY
+     */
+    public static final int MOD_KEY_EX = IS_MACOS ? InputEvent.META_DOWN_MASK : InputEvent.CTRL_DOWN_MASK;
     
     private static final File WIN_PATH = FileUtilities.joinPath(USER_HOME, "AppData", "Local", "libBasicUI");
     private static final File UNIX_PATH = FileUtilities.joinPath(USER_HOME, ".libBasicUI");
@@ -133,6 +157,12 @@ public class LibUtilities {
      */
     public static final File LIB_PREFERENCES_FILE = !IS_UNIX_LIKE ? WIN_PATH : UNIX_PATH;
     
+    /**
+     * Writes {@link LibUtilities#LIB_PREFERENCES_FILE}, writes requested by
+     * {@link LibUtilities#savePreferencesLater()} wait 500 ms
+     */
+    static final PreferencesStore preferencesStore = new PreferencesStore(LIB_PREFERENCES_FILE, 500);
+    
     /**
      * User-defined preferences
      */
@@ -161,6 +191,7 @@ public class LibUtilities {
     public static void setFontName(String fontName) {
         LibUtilities.fontName = fontName;
         UIProperties.initFonts();
+        PreferenceChangeBus.publish(Preferences.FONT_FAMILY);
     }
 
     /**
@@ -295,20 +326,30 @@ public class LibUtilities {
     }
     
     /**
-     * Calculates the size of a string given a font
+     * Calculates the size of a string given a font, measurements are cached
      * 
      * @param text the string
      * @param font the font
      * @return a new dimension
-     * @see FontRenderContext
+     * @see TextMetrics
      */
     public static Dimension getTextDimensions(String text, Font font) {
-        Rectangle2D r2D = font.getStringBounds(text, frc);
-        
-        return new Dimension((int) Math.floor(r2D.getWidth()), (int) Math.floor(r2D.getHeight()));
+        return TextMetrics.getTextDimensions(text, font);
     }
     
     
+    /**
+     * Gets the menu shortcut key from the Toolkit, AWT is initialized the 
+     * first time this is called
+     * 
+     * @return the modifier mask for menu shortcuts, as 
+     * <code>InputEvent.getModifiers()</code> returns it
+     * @see LibUtilities#MOD_KEY
+     */
+    public static int getMenuShortcutKeyMask() {
+        return ToolkitHolder.menuShortcutKeyMask;
+    }
+    
     /**
      * Adds a keybinding to the c component, by default key bindings added with
      * this method will be invoked WHEN_IN_FOCUSED_WINDOW
@@ -418,6 +459,8 @@ public class LibUtilities {
      */
     @Deprecated
     public static File getFile(File path, boolean selectDirectory) {
+        FileDialog fileDialog = FileDialogHolder.fileDialog;
+        
         fileDialog.setFile(selectDirectory ? "*." : null);
         
         if (path != null)
@@ -445,6 +488,8 @@ public class LibUtilities {
      */
     @Deprecated
     public static File [] getFiles(File path) {
+        FileDialog fileDialog = FileDialogHolder.fileDialog;
+        
         if (path != null)
             fileDialog.setDirectory(path.getAbsolutePath());
         
@@ -536,17 +581,11 @@ public class LibUtilities {
      * @see LibUtilities#colorToString(java.awt.Color) 
      */
     public static int [] getColorData(String value) {
-        boolean isColor = value.matches("[\\d]{1,3}-[\\d]{1,3}-[\\d]{1,3}");
-        int [] colorData = null;
-        if (isColor) {
-            colorData = new int[3];
-            
-            String [] colorUData = value.split("-");
-            for (int i = 0; i < 3; i++)
-                colorData[i] = Integer.parseInt(colorUData[i]);
+        try {
+            return PreferenceKey.parseColor(value);
+        } catch (IllegalArgumentException ex) {
+            return null;
         }
-        
-        return colorData;
     }
     
     /**
@@ -625,80 +664,76 @@ public class LibUtilities {
      * @param s the HashMap string to "compress"
      * @return an array containing the processed string, a LinkedList containing
      * the identifiers of each string replaced and another LinkedList containing
-     * the replacements. Both list have the same size
+     * the replacements. Both list have the same size, null if brackets are 
+     * not balanced
      * @see utils.LibUtilities#REPLACEMENT_STR
      * @see utils.LibUtilities#parseProperties(java.lang.String) 
+     * @see utils.MapParser#parse(java.lang.String) 
      */
     public static Object [] compressStringHashMap(String s) {
-        LinkedList<Integer> bracketOpeningIndexes = new LinkedList<>();
-        LinkedList<Integer> bracketClosingIndexes = new LinkedList<>();
-
-        for (int i = s.length() - 1; i > -1; i--)
+        int openingBrackets = 0;
+        for (int i = 0; i < s.length(); i++)
             if (s.charAt(i) == '{')
-                bracketOpeningIndexes.add(i);
+                openingBrackets++;
+        
+        // Maps are numbered from the last opening bracket to the first one,
+        // the first map is never replaced
+        String [] replacedStringsById = new String[Math.max(openingBrackets - 1, 0)];
+        
+        ArrayDeque<StringBuilder> builders = new ArrayDeque<>();
+        ArrayDeque<Integer> ids = new ArrayDeque<>();
+        StringBuilder result = new StringBuilder(s.length());
+        StringBuilder current = result;
+        int opened = 0;
+        
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
             
-        for (int i = 0; i < s.length(); i++)
-            if (s.charAt(i) == '}')
-                bracketClosingIndexes.add(i + 1);
+            if (c == '{') {
+                builders.push(current);
+                ids.push(openingBrackets - 1 - opened++);
+                
+                current = new StringBuilder();
+                current.append(c);
+            } else if (c == '}') {
+                if (builders.isEmpty())
+                    return null;
+                
+                current.append(c);
+                
+                int id = ids.pop();
+                StringBuilder parent = builders.pop();
+                
+                if (id == openingBrackets - 1) {
+                    parent.append(current);
+                } else {
+                    replacedStringsById[id] = current.toString();
+                    parent.append(REPLACEMENT_STR).append(id);
+                }
+                
+                current = parent;
+            } else
+                current.append(c);
+        }
         
-        if (bracketOpeningIndexes.size() != bracketClosingIndexes.size())
+        if (!builders.isEmpty())
             return null;
         
-        
         LinkedList<String> replacedStringIDs = new LinkedList<>();
         LinkedList<String> replacedStrings = new LinkedList<>();
-
-        int i = 0;
-        while (bracketOpeningIndexes.size() > 1) {
-//            System.out.println("\ni = " + i);
-//            System.out.println("opening indexes " + Arrays.toString(bracketOpeningIndexes.toArray(new Integer[bracketOpeningIndexes.size()])));
-//            System.out.println("closing indexes " + Arrays.toString(bracketClosingIndexes.toArray(new Integer[bracketClosingIndexes.size()])));
-        
-            int first = bracketOpeningIndexes.removeFirst();
-            int closingBigger = first;
-            int modifyIndex = -1;
-            
-            for (int j = 0; j < bracketClosingIndexes.size(); j++) {
-                int index = bracketClosingIndexes.get(j);
-                if (first < index) {
-                    bracketClosingIndexes.remove(j);
-                    modifyIndex = j;
-                    closingBigger = index;
-                    break;
-                }
-            }
-            
-//            System.out.println("first = " + first);
-//            System.out.println("closingBigger = " + closingBigger);
-//            System.out.println("modifyIndex = " + modifyIndex);
-            
-            String id = REPLACEMENT_STR + i;
-            String originalString = s.substring(first, closingBigger);
-//            System.out.println("replacement " + id);
-//            System.out.println("subs " + originalString);
-            
-            replacedStringIDs.add(id);
-            replacedStrings.add(originalString);
-            
-            s = replaceLast(s, originalString.replace("{", "\\{").replace("}", "\\}"), id);
-            int len = originalString.length() - id.length();
-            
-            for (int j = modifyIndex; j < bracketClosingIndexes.size(); j++)
-                bracketClosingIndexes.set(j, bracketClosingIndexes.get(j) - len);
-
-            i++;
-            
-//            System.out.println("result  " +s);
-//            System.out.println("slen " + s.length());
-//            System.out.println("");
+        
+        for (int i = 0; i < replacedStringsById.length; i++) {
+            replacedStringIDs.add(REPLACEMENT_STR + i);
+            replacedStrings.add(replacedStringsById[i]);
         }
         
-        return new Object[]{s, replacedStringIDs, replacedStrings};
+        return new Object[]{result.toString(), replacedStringIDs, replacedStrings};
     }
     
     /**
      * Creates a simple HashMap from a string<br><br>
-     * To parse more complex HashMaps follow the next steps:<br>
+     * Nested HashMaps can be parsed in a single step with {@link MapParser#parse(java.lang.String)},
+     * or following the next steps:<br>
      * <ol>
      * <li> "Compress" the string with {@link utils.LibUtilities#compressStringHashMap(java.lang.String)}
      * <li> Convert the string given by the last step using this method
@@ -729,20 +764,15 @@ public class LibUtilities {
         return parsedData;
     }
     
-    private static void setPreference(String key, String value) throws IllegalArgumentException {
-        Preferences keyParse;
+    static void setPreference(String key, String value) throws IllegalArgumentException {
+        Preferences keyParse = PreferenceRegistry.getLibraryKey(key);
         
-        try {
-            keyParse = Preferences.valueOf(key);
-        } catch (IllegalArgumentException ex) {
-            ex.printStackTrace();
+        if (keyParse == null) {
+            PreferenceRegistry.setStoredValue(key, value);
             return;
         }
         
-        int [] colorData = getColorData(value);
-        
-        boolean isInteger = value.matches("[\\d]+");
-        boolean isAPositiveNumber = value.matches("[\\d]+.[\\d]+");
+        int [] colorData;
         
         switch (keyParse) {
             case APPEARANCE:
@@ -754,24 +784,27 @@ public class LibUtilities {
             break;
             
             case PRIMARY_COLOR:
-                if (colorData == null)
-                    throw new IllegalArgumentException("Data '" + value + "' is not a color");
+                colorData = PreferenceKey.parseColor(value);
                 UIProperties.OLD_APP_BG_COLOR = new Color(colorData[0], colorData[1], colorData[2]);
                 UIProperties.APP_BG_COLOR = UIProperties.OLD_APP_BG_COLOR;
+                UIProperties.publishTheme();
+                PreferenceChangeBus.publish(Preferences.PRIMARY_COLOR);
             break;
             
             case SECONDARY_COLOR:
-                if (colorData == null)
-                    throw new IllegalArgumentException("Data '" + value + "' is not a color");
+                colorData = PreferenceKey.parseColor(value);
                 UIProperties.OLD_APP_BGA_COLOR = new Color(colorData[0], colorData[1], colorData[2]);
                 UIProperties.APP_BGA_COLOR = UIProperties.OLD_APP_BGA_COLOR;
+                UIProperties.publishTheme();
+                PreferenceChangeBus.publish(Preferences.SECONDARY_COLOR);
             break;
             
             case FOREGROUND_COLOR:
-                if (colorData == null)
-                    throw new IllegalArgumentException("Data '" + value + "' is not a color");
+                colorData = PreferenceKey.parseColor(value);
                 UIProperties.OLD_APP_FG_COLOR = new Color(colorData[0], colorData[1], colorData[2]);
                 UIProperties.APP_FG_COLOR = UIProperties.OLD_APP_FG_COLOR;
+                UIProperties.publishTheme();
+                PreferenceChangeBus.publish(Preferences.FOREGROUND_COLOR);
             break;
             
             case FONT_FAMILY:
@@ -779,29 +812,81 @@ public class LibUtilities {
             break;
             
             case TITLE_FONT_WIDTH:
-                if (!isInteger)
-                    throw new IllegalArgumentException("Data '" + value + "' is not an integer");
-                UIProperties.setTitleFontSize(Integer.parseInt(value));
+                UIProperties.setTitleFontSize(PreferenceKey.parseInteger(value));
             break;
             
             case SUBTITLE_FONT_WIDTH:
-                if (!isInteger)
-                    throw new IllegalArgumentException("Data '" + value + "' is not an integer");
-                UIProperties.setSubtitleFontSize(Integer.parseInt(value));
+                UIProperties.setSubtitleFontSize(PreferenceKey.parseInteger(value));
             break;
             
             case STANDARD_FONT_WIDTH:
-                if (!isInteger)
-                    throw new IllegalArgumentException("Data '" + value + "' is not an integer");
-                UIProperties.setStandardFontSize(Integer.parseInt(value));
+                UIProperties.setStandardFontSize(PreferenceKey.parseInteger(value));
             break;
             
             case UI_SCALE:
-                if (!isAPositiveNumber)
-                    throw new IllegalArgumentException("Data '" + value + "' is not a positive number");
-                UIProperties.setUIScale(Float.parseFloat(value));
+                UIProperties.setUIScale(PreferenceKey.parseFloat(value));
             break;
+            
+            case RENDERING_QUALITY:
+                try {
+                    UIProperties.setRenderingQuality(RenderingQuality.valueOf(value));
+                } catch (IllegalArgumentException ex) {
+                    throw new IllegalArgumentException("Data '" + value + "' is not a rendering quality");
+                }
+            break;
+        }
+    }
+    
+    /**
+     * Applies only the preferences whose value differs from the loaded one,
+     * accent colors are applied before the flag that decides if they're used.
+     * Values of application preferences are passed to {@link PreferenceRegistry}
+     * 
+     * @param values the preferences read from {@link LibUtilities#LIB_PREFERENCES_FILE}
+     * @return the library preferences that changed
+     * @see PreferencesWatcher
+     */
+    static EnumSet<Preferences> applyChangedPreferences(Map<String, String> values) {
+        EnumSet<Preferences> changed = EnumSet.noneOf(Preferences.class);
+        for (Preferences preference : Preferences.values()) {
+            String value = values.get(preference.name());
+            if (value != null && !value.equals(preferences.get(preference.name())))
+                changed.add(preference);
         }
+        
+        values.forEach((key, value) -> {
+            if (PreferenceRegistry.getLibraryKey(key) == null)
+                PreferenceRegistry.setStoredValue(key, value);
+        });
+        
+        if (changed.isEmpty())
+            return changed;
+        
+        EnumSet<Preferences> colors = EnumSet.of(Preferences.PRIMARY_COLOR, Preferences.SECONDARY_COLOR, Preferences.FOREGROUND_COLOR);
+        EnumSet<Preferences> applied = EnumSet.noneOf(Preferences.class);
+        
+        ArrayList<Preferences> order = new ArrayList<>(changed);
+        order.sort((a, b) -> Boolean.compare(!colors.contains(a), !colors.contains(b)));
+        
+        PreferenceChangeBus.batch(() -> {
+            for (Preferences preference : order)
+                try {
+                    setPreference(preference.name(), values.get(preference.name()));
+                    applied.add(preference);
+                } catch (IllegalArgumentException ex) {
+                    ex.printStackTrace();
+                }
+            
+            // Colors set while accent colors are disabled must be moved aside again
+            if (!Collections.disjoint(applied, colors) && !applied.contains(Preferences.USE_ACCENT_COLORS) && !UIProperties.usesAccentColors())
+                UIProperties.setUseAccentColors(false);
+        });
+        
+        preferences = new HashMap<>(preferences);
+        for (Preferences preference : applied)
+            preferences.put(preference.name(), values.get(preference.name()));
+        
+        return applied;
     }
     
     private static void compilePreferences() {
@@ -821,29 +906,34 @@ public class LibUtilities {
         preferences.put(Preferences.SUBTITLE_FONT_WIDTH.name(), "" + UIProperties.getSubtitleFontSize());
         preferences.put(Preferences.STANDARD_FONT_WIDTH.name(), "" + UIProperties.getStandardFontSize());
         preferences.put(Preferences.UI_SCALE.name(), "" + UIProperties.getUiScale());
+        preferences.put(Preferences.RENDERING_QUALITY.name(), UIProperties.getRenderingQuality().name());
+        
+        PreferenceRegistry.putStoredValues(preferences);
     }
     
     /**
-     * This will save all UI preferences inside a file
+     * This will save all UI preferences inside a file, the file is replaced 
+     * atomically
      * @return true if success
      * @see Preferences
      * @see LIB_PREFERENCES_FILE
+     * @see LibUtilities#savePreferencesLater() 
      */
     public static boolean savePreferences() {
-        if (!LIB_PREFERENCES_FILE.exists())
-            try {
-                LIB_PREFERENCES_FILE.createNewFile();
-            } catch (IOException ex) {
-                ex.printStackTrace();
-                return false;
-            }
-        
-        if (!LIB_PREFERENCES_FILE.canWrite())
-            return false;
+        compilePreferences();
         
+        return preferencesStore.write(preferences);
+    }
+    
+    /**
+     * Saves all UI preferences after a short delay, successive calls within
+     * the delay result in a single write
+     * @see LibUtilities#savePreferences() 
+     */
+    public static void savePreferencesLater() {
         compilePreferences();
         
-        return FileUtilities.writeFile(LIB_PREFERENCES_FILE, preferences.toString());
+        preferencesStore.writeLater(preferences);
     }
     
     /**
@@ -851,9 +941,9 @@ public class LibUtilities {
      * @see Preferences
      */
     public static void loadDefaultPreferences() {
-        DEFAULT_PREFERENCES.forEach(
+        PreferenceChangeBus.batch(() -> DEFAULT_PREFERENCES.forEach(
             (key, value) -> setPreference(key, value)
-        );
+        ));
 
         preferences = DEFAULT_PREFERENCES;
     }
@@ -875,19 +965,16 @@ public class LibUtilities {
             return savePreferences();
         }
         
-        if (!LIB_PREFERENCES_FILE.canRead())
-            return false;
-        
-        String data = FileUtilities.readFile(LIB_PREFERENCES_FILE).replace("\n", "");
-        if (data.replace(" ", "").isEmpty())
+        HashMap<String, String> data = preferencesStore.read();
+        if (data == null || data.isEmpty())
             return false;
         
-        preferences = parseProperties(data);
+        preferences = data;
         
         try {
-            preferences.forEach(
+            PreferenceChangeBus.batch(() -> preferences.forEach(
                 (key, value) -> setPreference(key, value)
-            );
+            ));
         } catch (IllegalArgumentException e) {
             e.printStackTrace();
             
@@ -0,0 +1,94 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the lines of a text file without loading it in memory<br>
+ * Lines don't include the line terminator. The file stays open until the
+ * last line is read or {@link LineIterator#close()} is called, use it in a
+ * try-with-resources statement<br>
+ * <pre>
+ * try (LineIterator lines = FileUtilities.readLines(file, StandardCharsets.UTF_8)) {
+ *     for (String line : lines)
+ *         ...
+ * }
+ * </pre>
+ * 
+ * @author cristopher
+ * @see FileUtilities#readLines(java.io.File, java.nio.charset.Charset)
+ */
+public class LineIterator implements Iterator<String>, Iterable<String>, Closeable {
+    private final BufferedReader reader;
+    private String nextLine;
+    private boolean closed = false;
+    
+    LineIterator(BufferedReader reader) {
+        this.reader = reader;
+    }
+    
+    /**
+     * @return true if there's another line
+     * @throws UncheckedIOException if the file can't be read
+     */
+    @Override
+    public boolean hasNext() throws UncheckedIOException {
+        if (nextLine != null)
+            return true;
+        
+        if (closed)
+            return false;
+        
+        try {
+            nextLine = reader.readLine();
+            if (nextLine == null)
+                close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        
+        return nextLine != null;
+    }
+    
+    /**
+     * @return the next line
+     * @throws NoSuchElementException if there are no more lines
+     * @throws UncheckedIOException if the file can't be read
+     */
+    @Override
+    public String next() throws NoSuchElementException, UncheckedIOException {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        
+        String line = nextLine;
+        nextLine = null;
+        
+        return line;
+    }
+    
+    /**
+     * @return this iterator, it can only be iterated once
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return this;
+    }
+    
+    /**
+     * Closes the file, no more lines are returned
+     * 
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        
+        closed = true;
+        reader.close();
+    }
+}
@@ -0,0 +1,152 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+
+/**
+ * Parser for the <code>{KEY=VALUE, KEY={KEY=VALUE}}</code> format written by
+ * {@link java.util.AbstractMap#toString()}<br>
+ * The string is read once from start to end, nested maps are returned as
+ * nested {@link LinkedHashMap}s keeping the order of the entries.<br><br>
+ * 
+ * As in {@link LibUtilities#parseProperties(java.lang.String)}, entries are
+ * separated by <code>", "</code>, a value can contain <code>'='</code> and
+ * <code>','</code> but not <code>", "</code> or <code>'}'</code>. Entries without
+ * <code>'='</code> are ignored.
+ * 
+ * @author cristopher
+ */
+public class MapParser {
+    private MapParser() { }
+    
+    /**
+     * Parses a string with nested maps, for example<br>
+     * <pre>{PROPERTY0=Hello, PROPERTY1={PROPERTY1_1=100, PROPERTY1_2=true}}</pre>
+     * returns a map where <code>PROPERTY0</code> is the String <code>"Hello"</code>
+     * and <code>PROPERTY1</code> is another map<br>
+     * Outer braces are optional.
+     * 
+     * @param data the string to parse
+     * @return a map whose values are either String or LinkedHashMap
+     * @throws IllegalArgumentException if braces are not balanced
+     */
+    public static LinkedHashMap<String, Object> parse(String data) throws IllegalArgumentException {
+        int end = data.length();
+        while (end > 0 && Character.isWhitespace(data.charAt(end - 1)))
+            end--;
+        
+        int i = 0;
+        while (i < end && Character.isWhitespace(data.charAt(i)))
+            i++;
+        
+        LinkedHashMap<String, Object> root = new LinkedHashMap<>();
+        ArrayDeque<LinkedHashMap<String, Object>> parents = new ArrayDeque<>();
+        LinkedHashMap<String, Object> current = root;
+        
+        boolean braces = i < end && data.charAt(i) == '{';
+        if (braces)
+            i++;
+        
+        while (i < end) {
+            char c = data.charAt(i);
+            
+            if (c == '}') {
+                if (parents.isEmpty()) {
+                    if (braces && i == end - 1)
+                        return root;
+                    
+                    throw new IllegalArgumentException("Unexpected '}' at index " + i);
+                }
+                
+                current = parents.pop();
+                i = skipSeparator(data, i + 1, end);
+                continue;
+            }
+            
+            int equals = findEntryEnd(data, i, end, true);
+            
+            if (equals == end || data.charAt(equals) != '=') {
+                // Entry without value
+                i = skipSeparator(data, equals, end);
+                continue;
+            }
+            
+            String key = data.substring(i, equals);
+            
+            if (equals + 1 < end && data.charAt(equals + 1) == '{') {
+                LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+                current.put(key, map);
+                parents.push(current);
+                current = map;
+                
+                i = equals + 2;
+                continue;
+            }
+            
+            int entryEnd = findEntryEnd(data, equals + 1, end, false);
+            current.put(key, data.substring(equals + 1, entryEnd));
+            i = skipSeparator(data, entryEnd, end);
+        }
+        
+        if (!parents.isEmpty() || braces)
+            throw new IllegalArgumentException("Missing '}' at the end of the data");
+        
+        return root;
+    }
+    
+    /**
+     * Finds where an entry starting at <code>start</code> ends, the end is
+     * the next <code>", "</code> or <code>'}'</code>
+     * 
+     * @param stopAtEquals if true, the search also stops at the first <code>'='</code>
+     */
+    private static int findEntryEnd(String data, int start, int end, boolean stopAtEquals) {
+        for (int i = start; i < end; i++) {
+            char c = data.charAt(i);
+            
+            if (c == '}' || (c == '=' && stopAtEquals) || (c == ',' && i + 1 < end && data.charAt(i + 1) == ' '))
+                return i;
+        }
+        
+        return end;
+    }
+    
+    /**
+     * @return the index after the <code>", "</code> at <code>i</code>, or
+     * <code>i</code> if there's no separator
+     */
+    private static int skipSeparator(String data, int i, int end) {
+        if (i + 1 < end && data.charAt(i) == ',' && data.charAt(i + 1) == ' ')
+            return i + 2;
+        
+        return i;
+    }
+    
+    /**
+     * Gets a nested map from a parsed map
+     * 
+     * @param map the parsed map
+     * @param key the key of the nested map
+     * @return the nested map or null if the key doesn't exist or its value
+     * is not a map
+     */
+    @SuppressWarnings("unchecked")
+    public static LinkedHashMap<String, Object> getMap(LinkedHashMap<String, Object> map, String key) {
+        Object value = map.get(key);
+        
+        return value instanceof LinkedHashMap ? (LinkedHashMap<String, Object>) value : null;
+    }
+    
+    /**
+     * Gets a value from a parsed map
+     * 
+     * @param map the parsed map
+     * @param key the key of the value
+     * @return the value or null if the key doesn't exist or its value is a map
+     */
+    public static String getString(LinkedHashMap<String, Object> map, String key) {
+        Object value = map.get(key);
+        
+        return value instanceof String ? (String) value : null;
+    }
+}
@@ -0,0 +1,190 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import ui.ComponentSetup;
+import utils.LibUtilities.Preferences;
+
+/**
+ * Notifies changes of {@link Preferences} to the objects that depend on them<br>
+ * {@link ui.UIProperties} setters and {@link LibUtilities#setFontName(java.lang.String)}
+ * publish their changes here, so a component can subscribe only to the
+ * preferences it uses instead of being refreshed with the whole
+ * {@link ComponentSetup} cascade.<br><br>
+ * 
+ * Listeners are kept until they unsubscribe.
+ * 
+ * @author cristopher
+ */
+public class PreferenceChangeBus {
+    private static final EnumMap<Preferences, ArrayList<PreferenceListener>> listeners = new EnumMap<>(Preferences.class);
+    
+    /**
+     * Batches running on each thread, a batch doesn't hold back the changes
+     * published by other threads
+     */
+    private static final ThreadLocal<Batch> batches = ThreadLocal.withInitial(Batch::new);
+    
+    private PreferenceChangeBus() { }
+    
+    /**
+     * Subscribes a listener to some preferences, a listener subscribed more
+     * than once is still notified once per change
+     * 
+     * @param listener the listener
+     * @param preferences the preferences to listen to, if none are given the
+     * listener is subscribed to all of them
+     */
+    public static synchronized void subscribe(PreferenceListener listener, Preferences ... preferences) {
+        if (preferences.length == 0)
+            preferences = Preferences.values();
+        
+        for (Preferences preference : preferences) {
+            ArrayList<PreferenceListener> list = listeners.computeIfAbsent(preference, (p) -> new ArrayList<>());
+            if (!list.contains(listener))
+                list.add(listener);
+        }
+    }
+    
+    /**
+     * Subscribes a component, only the update methods affected by the changed
+     * preferences will be called
+     * 
+     * @param component the component
+     * @param preferences the preferences the component depends on, if none
+     * are given the component is subscribed to all of them
+     * @return the listener created for the component, it's needed to unsubscribe
+     * @see PreferenceChangeBus#updateComponent(ui.ComponentSetup, java.util.Set)
+     */
+    public static PreferenceListener subscribe(ComponentSetup component, Preferences ... preferences) {
+        PreferenceListener listener = (changed) -> updateComponent(component, changed);
+        subscribe(listener, preferences);
+        
+        return listener;
+    }
+    
+    /**
+     * Removes a listener from all preferences
+     * 
+     * @param listener the listener
+     */
+    public static synchronized void unsubscribe(PreferenceListener listener) {
+        for (ArrayList<PreferenceListener> list : listeners.values())
+            list.remove(listener);
+    }
+    
+    /**
+     * Notifies a change, listeners are called on this thread unless a batch is
+     * running on it
+     * 
+     * @param changed the preferences that changed
+     * @see PreferenceChangeBus#batch(java.lang.Runnable)
+     */
+    public static void publish(Preferences ... changed) {
+        if (changed.length == 0)
+            return;
+        
+        Batch batch = batches.get();
+        if (batch.depth > 0) {
+            Collections.addAll(batch.pending, changed);
+            return;
+        }
+        
+        EnumSet<Preferences> preferences = EnumSet.noneOf(Preferences.class);
+        Collections.addAll(preferences, changed);
+        
+        dispatch(preferences);
+    }
+    
+    /**
+     * Runs an action which may change several preferences, listeners are
+     * notified once after it ends. Only changes published by this thread are
+     * held back
+     * 
+     * @param action the action
+     */
+    public static void batch(Runnable action) {
+        Batch batch = batches.get();
+        batch.depth++;
+        
+        try {
+            action.run();
+        } finally {
+            if (--batch.depth == 0 && !batch.pending.isEmpty()) {
+                EnumSet<Preferences> changed = EnumSet.copyOf(batch.pending);
+                batch.pending.clear();
+                
+                dispatch(changed);
+            }
+        }
+    }
+    
+    private static void dispatch(Set<Preferences> changed) {
+        LinkedHashMap<PreferenceListener, EnumSet<Preferences>> notifications = new LinkedHashMap<>();
+        
+        synchronized (PreferenceChangeBus.class) {
+            for (Preferences preference : changed) {
+                ArrayList<PreferenceListener> list = listeners.get(preference);
+                if (list == null)
+                    continue;
+                
+                for (PreferenceListener listener : list)
+                    notifications.computeIfAbsent(listener, (l) -> EnumSet.noneOf(Preferences.class)).add(preference);
+            }
+        }
+        
+        for (Map.Entry<PreferenceListener, EnumSet<Preferences>> notification : notifications.entrySet())
+            notification.getKey().preferencesChanged(Collections.unmodifiableSet(notification.getValue()));
+    }
+    
+    /**
+     * Calls only the update methods of a component affected by some preferences
+     * <ul>
+     *     <li>UI scale: <code>updateUISize()</code> and <code>updateUIFont()</code></li>
+     *     <li>Font family and sizes: <code>updateUIFont()</code></li>
+     *     <li>Appearance: <code>updateUITheme()</code> and <code>updateUIColors()</code></li>
+     *     <li>Accent colors: <code>updateUIColors()</code>, and <code>updateUITheme()</code>
+     *     if accent colors were turned on or off</li>
+     *     <li>Rendering quality: nothing, windows are repainted by
+     *     {@link ui.UIProperties#setRenderingQuality(ui.enums.RenderingQuality)}</li>
+     * </ul>
+     * 
+     * @param component the component
+     * @param changed the preferences that changed
+     */
+    public static void updateComponent(ComponentSetup component, Set<Preferences> changed) {
+        boolean size = changed.contains(Preferences.UI_SCALE);
+        boolean font = size || changed.contains(Preferences.FONT_FAMILY)
+                || changed.contains(Preferences.TITLE_FONT_WIDTH)
+                || changed.contains(Preferences.SUBTITLE_FONT_WIDTH)
+                || changed.contains(Preferences.STANDARD_FONT_WIDTH);
+        boolean theme = changed.contains(Preferences.APPEARANCE)
+                || changed.contains(Preferences.USE_ACCENT_COLORS);
+        boolean colors = theme || changed.contains(Preferences.PRIMARY_COLOR)
+                || changed.contains(Preferences.SECONDARY_COLOR)
+                || changed.contains(Preferences.FOREGROUND_COLOR);
+        
+        if (size)
+            component.updateUISize();
+        if (font)
+            component.updateUIFont();
+        if (theme)
+            component.updateUITheme();
+        if (colors)
+            component.updateUIColors();
+    }
+    
+    private static class Batch {
+        /**
+         * Changes published while the batch is running, they're dispatched
+         * together when the outermost batch ends
+         */
+        private final EnumSet<Preferences> pending = EnumSet.noneOf(Preferences.class);
+        private int depth = 0;
+    }
+}
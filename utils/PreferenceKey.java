@@ -0,0 +1,346 @@
+package utils;
+
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A typed application preference<br>
+ * Keys are created once with their parser, formatter and validator, and
+ * registered in {@link PreferenceRegistry} to be saved in
+ * {@link LibUtilities#LIB_PREFERENCES_FILE} along with the library preferences.<br><br>
+ * 
+ * The value is kept parsed, {@link PreferenceKey#get()} doesn't parse or
+ * allocate anything.
+ * 
+ * @author cristopher
+ * @param <T> the type of the value
+ * @see PreferenceRegistry#register(utils.PreferenceKey)
+ */
+public final class PreferenceKey<T> {
+    private final String name;
+    private final T defaultValue;
+    private final Function<String, T> parser;
+    private final Function<T, String> formatter;
+    private final Predicate<T> validator;
+    
+    private volatile T value;
+    
+    /**
+     * Creates a new key
+     * 
+     * @param name the name used in the preferences file
+     * @param defaultValue the initial value
+     * @param parser converts the stored text into a value, it must throw
+     * IllegalArgumentException if the text is not valid
+     * @param formatter converts a value into the stored text
+     * @param validator returns false for values outside the allowed range,
+     * it can be null. Null values are never allowed, neither values that
+     * don't read back the same once formatted
+     * @throws IllegalArgumentException if the name is empty or contains
+     * characters not allowed in keys, or if the default value is not valid
+     */
+    public PreferenceKey(String name, T defaultValue, Function<String, T> parser, Function<T, String> formatter, Predicate<T> validator) throws IllegalArgumentException {
+        if (name == null || name.isEmpty())
+            throw new IllegalArgumentException("Name cannot be empty");
+        
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.' && c != '-')
+                throw new IllegalArgumentException("Name '" + name + "' can only contain letters, digits, '_', '.' and '-'");
+        }
+        
+        this.name = name;
+        this.parser = Objects.requireNonNull(parser);
+        this.formatter = Objects.requireNonNull(formatter);
+        this.validator = validator;
+        
+        validate(defaultValue);
+        this.defaultValue = defaultValue;
+        this.value = defaultValue;
+    }
+    
+    /**
+     * Creates an integer key
+     * 
+     * @param name the name used in the preferences file
+     * @param defaultValue the initial value
+     * @param minimum the minimum value allowed
+     * @param maximum the maximum value allowed
+     * @return the key
+     */
+    public static PreferenceKey<Integer> ofInteger(String name, int defaultValue, int minimum, int maximum) {
+        return new PreferenceKey<>(name, defaultValue, PreferenceKey::parseSignedInteger, String::valueOf, (v) -> v >= minimum && v <= maximum);
+    }
+    
+    /**
+     * Creates a decimal key, values are stored as {@link String#valueOf(float)}
+     * writes them, including the exponent form
+     * 
+     * @param name the name used in the preferences file
+     * @param defaultValue the initial value
+     * @param minimum the minimum value allowed
+     * @param maximum the maximum value allowed
+     * @return the key
+     */
+    public static PreferenceKey<Float> ofFloat(String name, float defaultValue, float minimum, float maximum) {
+        return new PreferenceKey<>(name, defaultValue, (s) -> {
+            try {
+                return Float.valueOf(s);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Data '" + s + "' is not a number");
+            }
+        }, String::valueOf, (v) -> v >= minimum && v <= maximum);
+    }
+    
+    /**
+     * Creates a boolean key, any text other than <code>true</code> is read
+     * as false
+     * 
+     * @param name the name used in the preferences file
+     * @param defaultValue the initial value
+     * @return the key
+     */
+    public static PreferenceKey<Boolean> ofBoolean(String name, boolean defaultValue) {
+        return new PreferenceKey<>(name, defaultValue, Boolean::valueOf, String::valueOf, null);
+    }
+    
+    /**
+     * Creates a text key
+     * 
+     * @param name the name used in the preferences file
+     * @param defaultValue the initial value
+     * @return the key
+     */
+    public static PreferenceKey<String> ofString(String name, String defaultValue) {
+        return new PreferenceKey<>(name, defaultValue, (s) -> s, (s) -> s, null);
+    }
+    
+    /**
+     * Creates a color key, colors are stored as <code>red-green-blue</code>
+     * so they must be opaque
+     * 
+     * @param name the name used in the preferences file
+     * @param defaultValue the initial value
+     * @return the key
+     * @see LibUtilities#colorToString(java.awt.Color)
+     */
+    public static PreferenceKey<Color> ofColor(String name, Color defaultValue) {
+        return new PreferenceKey<>(name, defaultValue, (s) -> {
+            int [] color = parseColor(s);
+            return new Color(color[0], color[1], color[2]);
+        }, LibUtilities::colorToString, null);
+    }
+    
+    /**
+     * Creates a key for an enum, constants are stored by name
+     * 
+     * @param <E> the enum
+     * @param name the name used in the preferences file
+     * @param type the enum class
+     * @param defaultValue the initial value
+     * @return the key
+     */
+    public static <E extends Enum<E>> PreferenceKey<E> ofEnum(String name, Class<E> type, E defaultValue) {
+        HashMap<String, E> constants = new HashMap<>();
+        for (E constant : type.getEnumConstants())
+            constants.put(constant.name(), constant);
+        
+        return new PreferenceKey<>(name, defaultValue, (s) -> {
+            E constant = constants.get(s);
+            if (constant == null)
+                throw new IllegalArgumentException("Data '" + s + "' is not a " + type.getSimpleName());
+            
+            return constant;
+        }, Enum::name, null);
+    }
+    
+    /**
+     * Parses a non-negative integer without sign
+     * 
+     * @param value the text
+     * @return the integer
+     * @throws IllegalArgumentException if the text isn't only digits or it
+     * doesn't fit in an int
+     */
+    public static int parseInteger(String value) throws IllegalArgumentException {
+        if (value.isEmpty() || value.length() > 10)
+            throw new IllegalArgumentException("Data '" + value + "' is not an integer");
+        
+        long n = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+                throw new IllegalArgumentException("Data '" + value + "' is not an integer");
+            
+            n = n * 10 + (c - '0');
+        }
+        
+        if (n > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Data '" + value + "' is not an integer");
+        
+        return (int) n;
+    }
+    
+    /**
+     * Parses an integer with an optional sign
+     * 
+     * @param value the text
+     * @return the integer
+     * @throws IllegalArgumentException if the text isn't a sign followed by
+     * digits or it doesn't fit in an int
+     */
+    public static int parseSignedInteger(String value) throws IllegalArgumentException {
+        boolean negative = value.startsWith("-");
+        int start = negative || value.startsWith("+") ? 1 : 0;
+        
+        if (value.length() == start || value.length() - start > 10)
+            throw new IllegalArgumentException("Data '" + value + "' is not an integer");
+        
+        long n = 0;
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+                throw new IllegalArgumentException("Data '" + value + "' is not an integer");
+            
+            n = n * 10 + (c - '0');
+        }
+        
+        if (negative)
+            n = -n;
+        
+        if (n < Integer.MIN_VALUE || n > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Data '" + value + "' is not an integer");
+        
+        return (int) n;
+    }
+    
+    /**
+     * Parses a non-negative decimal number with the format <code>digits.digits</code>
+     * 
+     * @param value the text
+     * @return the number
+     * @throws IllegalArgumentException if the text doesn't have the format
+     */
+    public static float parseFloat(String value) throws IllegalArgumentException {
+        int dot = value.indexOf('.');
+        if (dot < 1 || dot == value.length() - 1)
+            throw new IllegalArgumentException("Data '" + value + "' is not a positive number");
+        
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (i != dot && (c < '0' || c > '9'))
+                throw new IllegalArgumentException("Data '" + value + "' is not a positive number");
+        }
+        
+        return Float.parseFloat(value);
+    }
+    
+    /**
+     * Parses a color with the format <code>red-green-blue</code>, every
+     * component has from one to three digits
+     * 
+     * @param value the text
+     * @return an int[3] array
+     * @throws IllegalArgumentException if the text doesn't have the format
+     */
+    public static int [] parseColor(String value) throws IllegalArgumentException {
+        int [] color = new int[3];
+        int component = 0;
+        int digits = 0;
+        
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            
+            if (c == '-' && digits > 0 && component < 2) {
+                component++;
+                digits = 0;
+            } else if (c >= '0' && c <= '9' && digits < 3) {
+                color[component] = color[component] * 10 + (c - '0');
+                digits++;
+            } else
+                throw new IllegalArgumentException("Data '" + value + "' is not a color");
+        }
+        
+        if (component != 2 || digits == 0)
+            throw new IllegalArgumentException("Data '" + value + "' is not a color");
+        
+        return color;
+    }
+    
+    private void validate(T value) throws IllegalArgumentException {
+        if (value == null)
+            throw new IllegalArgumentException("Value of '" + name + "' cannot be null");
+        
+        if (validator != null && !validator.test(value))
+            throw new IllegalArgumentException("Value '" + value + "' is not valid for '" + name + "'");
+        
+        // The value must survive being saved and loaded again
+        String text = formatter.apply(value);
+        if (!value.equals(parser.apply(text)))
+            throw new IllegalArgumentException("Value '" + value + "' of '" + name + "' doesn't read back from '" + text + "'");
+    }
+    
+    /**
+     * @return the name used in the preferences file
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * @return the current value
+     */
+    public T get() {
+        return value;
+    }
+    
+    /**
+     * @return the initial value
+     */
+    public T getDefaultValue() {
+        return defaultValue;
+    }
+    
+    /**
+     * Changes the value, call {@link LibUtilities#savePreferences()} to store it
+     * 
+     * @param value the new value
+     * @throws IllegalArgumentException if the value is not valid
+     */
+    public void set(T value) throws IllegalArgumentException {
+        validate(value);
+        this.value = value;
+    }
+    
+    /**
+     * Restores the initial value
+     */
+    public void reset() {
+        value = defaultValue;
+    }
+    
+    /**
+     * Parses and validates a stored text
+     * 
+     * @param text the stored text
+     * @throws IllegalArgumentException if the text is not valid
+     */
+    public void setText(String text) throws IllegalArgumentException {
+        set(parser.apply(text));
+    }
+    
+    /**
+     * @return the current value as it's stored
+     */
+    public String getText() {
+        return formatter.apply(value);
+    }
+    
+    @Override
+    public String toString() {
+        return name + "=" + getText();
+    }
+}
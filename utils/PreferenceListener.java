@@ -0,0 +1,21 @@
+package utils;
+
+import java.util.Set;
+import utils.LibUtilities.Preferences;
+
+/**
+ * Interface for objects notified by {@link PreferenceChangeBus}
+ * 
+ * @author cristopher
+ */
+public interface PreferenceListener {
+    /**
+     * Called after one or more preferences this listener subscribed to changed,
+     * it's called on the thread that changed them
+     * 
+     * @param changed the preferences that changed, only the ones this listener
+     * subscribed to are included
+     * @see PreferenceChangeBus#subscribe(utils.PreferenceListener, utils.LibUtilities.Preferences...)
+     */
+    public void preferencesChanged(Set<Preferences> changed);
+}
@@ -0,0 +1,154 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import utils.LibUtilities.Preferences;
+
+/**
+ * Registry of application preferences saved along with the library ones<br>
+ * Keys have to be registered once, usually at startup. Values found in
+ * {@link LibUtilities#LIB_PREFERENCES_FILE} for keys not registered yet are
+ * kept, they're applied when the key is registered and saved unchanged
+ * meanwhile.<br><br>
+ * 
+ * Usage:
+ * <pre>
+ *     static final PreferenceKey&lt;Integer&gt; HISTORY_SIZE = PreferenceRegistry.register(
+ *             PreferenceKey.ofInteger("MY_APP.HISTORY_SIZE", 50, 0, 1000)
+ *     );
+ *     ...
+ *     int size = HISTORY_SIZE.get();
+ * </pre>
+ * 
+ * @author cristopher
+ * @see PreferenceKey
+ */
+public class PreferenceRegistry {
+    private static final LinkedHashMap<String, PreferenceKey<?>> keys = new LinkedHashMap<>();
+    
+    /**
+     * Stored values of keys that aren't registered yet
+     */
+    private static final HashMap<String, String> storedValues = new HashMap<>();
+    
+    private static final HashMap<String, Preferences> libraryKeys = new HashMap<>();
+    
+    static {
+        for (Preferences preference : Preferences.values())
+            libraryKeys.put(preference.name(), preference);
+    }
+    
+    private PreferenceRegistry() { }
+    
+    /**
+     * Registers a key, if a value was loaded for it, it's applied
+     * 
+     * @param <T> the type of the value
+     * @param key the key
+     * @return the same key
+     * @throws IllegalArgumentException if there's already a key with the same
+     * name or the name belongs to a library preference
+     */
+    public static synchronized <T> PreferenceKey<T> register(PreferenceKey<T> key) throws IllegalArgumentException {
+        if (libraryKeys.containsKey(key.getName()))
+            throw new IllegalArgumentException("Name '" + key.getName() + "' is used by the library");
+        if (keys.containsKey(key.getName()))
+            throw new IllegalArgumentException("Name '" + key.getName() + "' is already registered");
+        
+        keys.put(key.getName(), key);
+        
+        String stored = storedValues.remove(key.getName());
+        if (stored != null)
+            applyText(key, stored);
+        
+        return key;
+    }
+    
+    /**
+     * Removes a key, its value is still kept in the preferences file
+     * 
+     * @param key the key
+     */
+    public static synchronized void unregister(PreferenceKey<?> key) {
+        if (keys.remove(key.getName()) != null)
+            storedValues.put(key.getName(), key.getText());
+    }
+    
+    /**
+     * @param name the name of the key
+     * @return the registered key or null
+     */
+    public static synchronized PreferenceKey<?> getKey(String name) {
+        return keys.get(name);
+    }
+    
+    /**
+     * @return the registered keys in registration order
+     */
+    public static synchronized List<PreferenceKey<?>> getKeys() {
+        return new ArrayList<>(keys.values());
+    }
+    
+    /**
+     * Restores the initial value of every registered key
+     */
+    public static synchronized void resetAll() {
+        for (PreferenceKey<?> key : keys.values())
+            key.reset();
+    }
+    
+    /**
+     * @param name a preference name
+     * @return the library preference with that name or null
+     */
+    static Preferences getLibraryKey(String name) {
+        return libraryKeys.get(name);
+    }
+    
+    /**
+     * Applies a stored value, values of keys not registered are kept until
+     * the key is registered
+     * 
+     * @param name the key name
+     * @param text the stored value
+     * @return true if the value changed a registered key
+     */
+    static synchronized boolean setStoredValue(String name, String text) {
+        PreferenceKey<?> key = keys.get(name);
+        if (key == null) {
+            storedValues.put(name, text);
+            return false;
+        }
+        
+        if (text.equals(key.getText()))
+            return false;
+        
+        return applyText(key, text);
+    }
+    
+    /**
+     * Adds the stored text of every application preference
+     * 
+     * @param values the map to fill
+     */
+    static synchronized void putStoredValues(Map<String, String> values) {
+        values.putAll(storedValues);
+        
+        for (PreferenceKey<?> key : keys.values())
+            values.put(key.getName(), key.getText());
+    }
+    
+    private static boolean applyText(PreferenceKey<?> key, String text) {
+        try {
+            key.setText(text);
+            return true;
+        } catch (IllegalArgumentException ex) {
+            ex.printStackTrace();
+        }
+        
+        return false;
+    }
+}
@@ -0,0 +1,220 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores a set of preferences in a file<br>
+ * Values are written escaped as {@link Properties}, so they can contain any
+ * character. Every write goes to a temporary file which then replaces the
+ * preferences file, a crash in the middle of a write leaves the previous file
+ * untouched.<br><br>
+ * 
+ * Files written by older versions, <code>{KEY=VALUE, KEY=VALUE}</code>,
+ * can still be read.
+ * 
+ * @author cristopher
+ * @see LibUtilities#savePreferences()
+ */
+public class PreferencesStore {
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor((r) -> {
+        Thread t = new Thread(r, "PreferencesStore");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    private final File file;
+    private final long writeDelay;
+    private final Object writeLock = new Object();
+    
+    private Map<String, String> pendingValues;
+    private ScheduledFuture<?> pendingWrite;
+    
+    /**
+     * Every write gets a number, a write is skipped if a newer one already
+     * replaced the file
+     */
+    private long writeCount = 0;
+    private long lastWrite = 0;
+    
+    /**
+     * Creates a new store, pending writes are flushed when the JVM exits
+     * 
+     * @param file the preferences file
+     * @param writeDelay milliseconds to wait before writing values passed to
+     * {@link PreferencesStore#writeLater(java.util.Map)}
+     * @throws IllegalArgumentException if writeDelay is negative
+     */
+    public PreferencesStore(File file, long writeDelay) throws IllegalArgumentException {
+        if (writeDelay < 0)
+            throw new IllegalArgumentException("Delay cannot be negative");
+        
+        this.file = file;
+        this.writeDelay = writeDelay;
+        
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "PreferencesStore-flush"));
+    }
+    
+    /**
+     * @return the preferences file
+     */
+    public File getFile() {
+        return file;
+    }
+    
+    /**
+     * Reads the preferences file, old <code>{KEY=VALUE, ...}</code> files are
+     * also accepted
+     * 
+     * @return the stored values or null if the file doesn't exist or can't
+     * be read
+     */
+    public HashMap<String, String> read() {
+        if (!file.exists() || !file.canRead())
+            return null;
+        
+        try {
+            byte [] data = Files.readAllBytes(file.toPath());
+            String text = new String(data).trim();
+            
+            if (text.startsWith("{"))
+                return LibUtilities.parseProperties(text.replace("\n", ""));
+            
+            Properties properties = new Properties();
+            properties.load(new ByteArrayInputStream(data));
+            
+            HashMap<String, String> values = new HashMap<>();
+            for (String key : properties.stringPropertyNames())
+                values.put(key, properties.getProperty(key));
+            
+            return values;
+        } catch (IOException | IllegalArgumentException ex) {
+            ex.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Writes the values right away, any pending write is discarded
+     * 
+     * @param values the preferences
+     * @return true if the file was replaced
+     */
+    public boolean write(Map<String, String> values) {
+        long writeNumber;
+        
+        synchronized (this) {
+            cancelPendingWrite();
+            writeNumber = ++writeCount;
+        }
+        
+        return writeFile(values, writeNumber);
+    }
+    
+    /**
+     * Schedules a write, if this is called again before the delay passes
+     * only the latest values are written
+     * 
+     * @param values the preferences, they are copied
+     */
+    public synchronized void writeLater(Map<String, String> values) {
+        cancelPendingWrite();
+        
+        pendingValues = new HashMap<>(values);
+        pendingWrite = writer.schedule(this::flush, writeDelay, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Writes the pending values, if any
+     * 
+     * @return true if there was nothing to write or the file was replaced
+     */
+    public boolean flush() {
+        Map<String, String> values;
+        long writeNumber;
+        
+        synchronized (this) {
+            values = pendingValues;
+            cancelPendingWrite();
+            writeNumber = ++writeCount;
+        }
+        
+        if (values == null)
+            return true;
+        
+        return writeFile(values, writeNumber);
+    }
+    
+    /**
+     * @return true if there are values waiting to be written
+     */
+    public synchronized boolean hasPendingWrite() {
+        return pendingValues != null;
+    }
+    
+    private void cancelPendingWrite() {
+        if (pendingWrite != null)
+            pendingWrite.cancel(false);
+        
+        pendingWrite = null;
+        pendingValues = null;
+    }
+    
+    private boolean writeFile(Map<String, String> values, long writeNumber) {
+        Properties properties = new Properties();
+        values.forEach((key, value) -> {
+            if (key != null && value != null)
+                properties.setProperty(key, value);
+        });
+        
+        synchronized (writeLock) {
+            if (writeNumber < lastWrite)
+                return true;
+            
+            Path target = file.getAbsoluteFile().toPath();
+            Path temporary = null;
+            
+            try {
+                temporary = FileUtilities.createTemporaryFile(target);
+                
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+                        OutputStream outputStream = Channels.newOutputStream(channel)) {
+                    properties.store(outputStream, "libBasicUI preferences");
+                    outputStream.flush();
+                    channel.force(true);
+                }
+                
+                FileUtilities.replaceFile(temporary, target);
+                
+                lastWrite = writeNumber;
+                return true;
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                
+                if (temporary != null)
+                    try {
+                        Files.deleteIfExists(temporary);
+                    } catch (IOException ex1) {
+                        ex1.printStackTrace();
+                    }
+            }
+        }
+        
+        return false;
+    }
+}
@@ -0,0 +1,142 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import utils.LibUtilities.Preferences;
+
+/**
+ * Watches {@link LibUtilities#LIB_PREFERENCES_FILE} for changes made by
+ * other applications<br>
+ * Only the preferences that changed are applied, and they're published once
+ * to {@link PreferenceChangeBus}. Components to be updated must subscribe
+ * to it, e.g. with {@link PreferenceChangeBus#subscribe(ui.ComponentSetup, utils.LibUtilities.Preferences...)}<br><br>
+ * 
+ * <b>Note:</b> on some systems (e.g. macOS) the file is polled, changes can
+ * take a few seconds to be noticed
+ * 
+ * @author cristopher
+ */
+public class PreferencesWatcher {
+    /**
+     * Milliseconds without events of the file before it's read again
+     */
+    public static final long DEBOUNCE_DELAY = 250;
+    
+    private static WatchService watchService;
+    
+    private PreferencesWatcher() { }
+    
+    /**
+     * Starts watching the preferences file, nothing is done if the watcher
+     * is already running
+     * 
+     * @return true if the watcher is running
+     */
+    public static synchronized boolean start() {
+        if (watchService != null)
+            return true;
+        
+        Path file = LibUtilities.LIB_PREFERENCES_FILE.getAbsoluteFile().toPath();
+        Path directory = file.getParent();
+        if (directory == null)
+            return false;
+        
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            
+            watchService = service;
+        } catch (IOException | UnsupportedOperationException ex) {
+            ex.printStackTrace();
+            return false;
+        }
+        
+        Thread t = new Thread(() -> watch(watchService, file.getFileName()), "PreferencesWatcher");
+        t.setDaemon(true);
+        t.start();
+        
+        return true;
+    }
+    
+    /**
+     * Stops watching the preferences file
+     */
+    public static synchronized void stop() {
+        if (watchService == null)
+            return;
+        
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        
+        watchService = null;
+    }
+    
+    /**
+     * @return true if the preferences file is being watched
+     */
+    public static synchronized boolean isRunning() {
+        return watchService != null;
+    }
+    
+    private static void watch(WatchService service, Path fileName) {
+        try {
+            while (true) {
+                if (!hasFileEvent(service.take(), fileName))
+                    continue;
+                
+                // Bursts of events, like the ones of a rename, end in a single reload,
+                // events of other files in the directory don't postpone it
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_DELAY);
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    WatchKey key = service.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (key != null && hasFileEvent(key, fileName))
+                        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_DELAY);
+                }
+                
+                reload();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ex) {
+            // The watcher was stopped
+        }
+    }
+    
+    private static boolean hasFileEvent(WatchKey key, Path fileName) {
+        boolean found = false;
+        
+        for (WatchEvent<?> event : key.pollEvents())
+            if (fileName.equals(event.context()))
+                found = true;
+        
+        key.reset();
+        
+        return found;
+    }
+    
+    private static void reload() {
+        HashMap<String, String> values = LibUtilities.preferencesStore.read();
+        if (values == null || values.isEmpty())
+            return;
+        
+        SwingUtilities.invokeLater(() -> {
+            EnumSet<Preferences> changed = LibUtilities.applyChangedPreferences(values);
+            if (changed.isEmpty())
+                return;
+            
+            System.out.println("[INFO] Preferences reloaded: " + changed);
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package utils;
+
+/**
+ * Interface for objects notified of the progress of a long operation, like
+ * copying, downloading or extracting files
+ * 
+ * @author cristopher
+ */
+public interface ProgressListener {
+    /**
+     * Called every time some data is processed, it's called on the thread
+     * doing the work
+     * 
+     * @param processed the amount processed so far, usually bytes
+     * @param total the total amount or -1 if it's unknown
+     */
+    public void progressChanged(long processed, long total);
+}
@@ -0,0 +1,207 @@
+package utils;
+
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of text measurements<br>
+ * Measuring a string is expensive and components measure the same strings
+ * every time their layout is updated, so each measurement is kept in a
+ * bounded cache. Printable ASCII strings are measured by adding the advances
+ * stored in a per-font table, which avoids creating a text layout.
+ * 
+ * @author cristopher
+ * @see LibUtilities#getTextDimensions(java.lang.String, java.awt.Font)
+ */
+public class TextMetrics {
+    private static final FontRenderContext frc = new FontRenderContext(new AffineTransform(), true, true);
+    
+    private static final char FIRST_ASCII_CHAR = ' ';
+    private static final char LAST_ASCII_CHAR = '~';
+    
+    /**
+     * Maximum amount of measurements kept in memory
+     */
+    private static int maximumEntries = 2048;
+    
+    /**
+     * Maximum amount of fonts with an advance table
+     */
+    private static final int MAXIMUM_ADVANCE_TABLES = 32;
+    
+    private static int hits = 0;
+    private static int misses = 0;
+    
+    private static final LinkedHashMap<Key, Dimension> measurements = new LinkedHashMap<Key, Dimension>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Dimension> eldest) {
+            return size() > maximumEntries;
+        }
+    };
+    
+    private static final LinkedHashMap<Font, AdvanceTable> advanceTables = new LinkedHashMap<Font, AdvanceTable>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Font, AdvanceTable> eldest) {
+            return size() > MAXIMUM_ADVANCE_TABLES;
+        }
+    };
+    
+    private TextMetrics() { }
+    
+    /**
+     * Calculates the size of a string given a font, previous measurements
+     * are reused
+     * 
+     * @param text the string
+     * @param font the font
+     * @return a new dimension
+     */
+    public static Dimension getTextDimensions(String text, Font font) {
+        Key key = new Key(text, font);
+        Dimension d;
+        
+        synchronized (TextMetrics.class) {
+            d = measurements.get(key);
+            if (d != null) {
+                hits++;
+                return new Dimension(d);
+            }
+            
+            misses++;
+        }
+        
+        d = measure(text, font);
+        
+        synchronized (TextMetrics.class) {
+            measurements.put(key, d);
+        }
+        
+        return new Dimension(d);
+    }
+    
+    private static Dimension measure(String text, Font font) {
+        if (isPrintableASCII(text) && !font.hasLayoutAttributes()) {
+            AdvanceTable table = getAdvanceTable(font);
+            
+            double width = 0;
+            for (int i = 0; i < text.length(); i++)
+                width += table.advances[text.charAt(i) - FIRST_ASCII_CHAR];
+            
+            return new Dimension((int) Math.floor(width), (int) Math.floor(table.height));
+        }
+        
+        Rectangle2D r2D = font.getStringBounds(text, frc);
+        
+        return new Dimension((int) Math.floor(r2D.getWidth()), (int) Math.floor(r2D.getHeight()));
+    }
+    
+    private static boolean isPrintableASCII(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < FIRST_ASCII_CHAR || c > LAST_ASCII_CHAR)
+                return false;
+        }
+        
+        return true;
+    }
+    
+    private static AdvanceTable getAdvanceTable(Font font) {
+        synchronized (TextMetrics.class) {
+            AdvanceTable table = advanceTables.get(font);
+            if (table != null)
+                return table;
+        }
+        
+        AdvanceTable table = new AdvanceTable(font);
+        
+        synchronized (TextMetrics.class) {
+            advanceTables.put(font, table);
+        }
+        
+        return table;
+    }
+    
+    /**
+     * Discards every measurement and advance table, this is called when
+     * UI fonts are rebuilt
+     * 
+     * @see ui.UIProperties#initFonts()
+     */
+    public static synchronized void clear() {
+        measurements.clear();
+        advanceTables.clear();
+        hits = 0;
+        misses = 0;
+    }
+    
+    /**
+     * Changes the maximum amount of cached measurements
+     * 
+     * @param maximumEntries the new limit
+     * @throws IllegalArgumentException if maximumEntries is less than 1
+     */
+    public static synchronized void setMaximumEntries(int maximumEntries) throws IllegalArgumentException {
+        if (maximumEntries < 1)
+            throw new IllegalArgumentException("Maximum entries must be greater than zero");
+        
+        TextMetrics.maximumEntries = maximumEntries;
+        
+        while (measurements.size() > maximumEntries)
+            measurements.remove(measurements.keySet().iterator().next());
+    }
+    
+    /**
+     * @return a string with the amount of entries, hits and misses of the cache
+     */
+    public static synchronized String getStatistics() {
+        return "entries=" + measurements.size() + ", fonts=" + advanceTables.size() + ", hits=" + hits + ", misses=" + misses;
+    }
+    
+    private static final class AdvanceTable {
+        private final float [] advances = new float[LAST_ASCII_CHAR - FIRST_ASCII_CHAR + 1];
+        private final double height;
+        
+        private AdvanceTable(Font font) {
+            char [] glyph = new char[1];
+            
+            for (char c = FIRST_ASCII_CHAR; c <= LAST_ASCII_CHAR; c++) {
+                glyph[0] = c;
+                advances[c - FIRST_ASCII_CHAR] = (float) font.getStringBounds(glyph, 0, 1, frc).getWidth();
+            }
+            
+            height = font.getStringBounds(" ", frc).getHeight();
+        }
+    }
+    
+    private static final class Key {
+        private final String text;
+        private final Font font;
+        
+        private Key(String text, Font font) {
+            this.text = text;
+            this.font = font;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            
+            Key k = (Key) o;
+            return text.equals(k.text) && font.equals(k.font);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, font);
+        }
+    }
+}
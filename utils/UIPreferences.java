@@ -11,6 +11,7 @@ import ui.ComboBox;
 import ui.Dialog;
 import ui.Label;
 import ui.NumberSelector;
+import ui.ThemeTransition;
 import ui.UIProperties;
 import ui.Window;
 import ui.enums.LabelType;
@@ -66,22 +67,10 @@ public class UIPreferences extends Dialog {
         
         themeOptions.setPreferredSize(new Dimension(210, 22));
         themeOptions.addOption("Light", "utils/assets/lSun.png", "utils/assets/dSun.png", "utils/assets/dSun.png", true, false, (Action) -> {
-            UIProperties.setLightColor();
-            mainWindow.updateUITheme();
-            mainWindow.updateUIColors();
-            updateUITheme();
-            updateUIColors();
-            
-            LibUtilities.savePreferences();
+            ThemeTransition.setLightThemeActive(true, LibUtilities::savePreferencesLater, mainWindow, this);
         });
         themeOptions.addOption("Dark", "utils/assets/lMoon.png", "utils/assets/dMoon.png", "utils/assets/dMoon.png", true, false, (Action) -> {
-            UIProperties.setDarkColor();
-            mainWindow.updateUITheme();
-            mainWindow.updateUIColors();
-            updateUITheme();
-            updateUIColors();
-            
-            LibUtilities.savePreferences();
+            ThemeTransition.setLightThemeActive(false, LibUtilities::savePreferencesLater, mainWindow, this);
         });
         
         useAccentColorsCheckButton.setPreferredSize(new Dimension(210, 22));
@@ -92,7 +81,7 @@ public class UIPreferences extends Dialog {
             updateUIColors();
             updateUITheme();
             
-            LibUtilities.savePreferences();
+            LibUtilities.savePreferencesLater();
         });
         
         selectorAccentColor1.setPreferredSize(new Dimension(210, 22));
@@ -112,7 +101,7 @@ public class UIPreferences extends Dialog {
             updateUIColors();
             updateUITheme();
             
-            LibUtilities.savePreferences();
+            LibUtilities.savePreferencesLater();
         });
         
         selectorAccentColor2.setPreferredSize(new Dimension(210, 22));
@@ -132,7 +121,7 @@ public class UIPreferences extends Dialog {
             updateUIColors();
             updateUITheme();
             
-            LibUtilities.savePreferences();
+            LibUtilities.savePreferencesLater();
         });
         
         selectorAccentColor3.setPreferredSize(new Dimension(210, 22));
@@ -152,7 +141,7 @@ public class UIPreferences extends Dialog {
             updateUIColors();
             updateUITheme();
             
-            LibUtilities.savePreferences();
+            LibUtilities.savePreferencesLater();
         });
         
         colorPresets.setPreferredSize(new Dimension(210, 22));
@@ -174,19 +163,19 @@ public class UIPreferences extends Dialog {
                 updateUIColors();
                 updateUITheme();
                 
-                LibUtilities.savePreferences();
+                LibUtilities.savePreferencesLater();
             });
         }
         
         
         fontOptions.setPreferredSize(new Dimension(210, 22));
-        for (String name : UIProperties.AVAILABLE_FONTS)
+        for (String name : UIProperties.getAvailableFonts())
             fontOptions.addOption(name, false, (Action) -> {
                 LibUtilities.setFontName(name);
                 mainWindow.updateUIFont();
                 updateUIFont();
                 
-                LibUtilities.savePreferences();
+                LibUtilities.savePreferencesLater();
             });
         
         
@@ -199,7 +188,7 @@ public class UIPreferences extends Dialog {
                 mainWindow.updateUIFont();
                 updateUIFont();
                 
-                LibUtilities.savePreferences();
+                LibUtilities.savePreferencesLater();
             }
         };
         titleFontSizeSelector = new NumberSelector("Title width", "  24pt", 24, 16, 100, 1, titleFontUpdater);
@@ -214,7 +203,7 @@ public class UIPreferences extends Dialog {
                 mainWindow.updateUIFont();
                 updateUIFont();
                 
-                LibUtilities.savePreferences();
+                LibUtilities.savePreferencesLater();
             }
         };
         subtitleFontSizeSelector = new NumberSelector("Subtitle width", "  18pt", 18, 10, 94, 1, subtitleFontUpdater);
@@ -229,7 +218,7 @@ public class UIPreferences extends Dialog {
                 mainWindow.updateUIFont();
                 updateUIFont();
                 
-                LibUtilities.savePreferences();
+                LibUtilities.savePreferencesLater();
             }
         };
         fontSizeSelector = new NumberSelector("Font width", "  13pt", 13, 5, 89, 1, fontUpdater);
@@ -247,7 +236,7 @@ public class UIPreferences extends Dialog {
                 updateUIFont();
                 updateUISize();
                 
-                LibUtilities.savePreferences();
+                LibUtilities.savePreferencesLater();
             }
         };
         uiScale = new NumberSelector("UI scale", "  100%", 100, 50, 200, 10, uiScaleUpdater);
@@ -261,7 +250,7 @@ public class UIPreferences extends Dialog {
         resetButton.addActionListener((Action) -> {
             LibUtilities.loadDefaultPreferences();
             updatePreferences();
-            LibUtilities.savePreferences();
+            LibUtilities.savePreferencesLater();
         });
         
         
@@ -0,0 +1,407 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a zip archive one entry at a time<br>
+ * Entries are either compressed beforehand by {@link ZipArchiveWriter#prepareEntry(java.nio.file.Path, java.nio.file.Path)},
+ * which can run on any thread, or compressed by the writer while they're
+ * written. Central directory records are kept in a temporary file so memory
+ * doesn't grow with the number of entries, Zip64 records are added when
+ * sizes, offsets or the number of entries need them.
+ * 
+ * @author cristopher
+ * @see FileUtilities#zipDirectory(java.io.File, java.io.File, utils.ProgressListener, utils.ZipEntryListener)
+ */
+class ZipArchiveWriter implements Closeable {
+    /**
+     * Files up to this size in bytes are compressed in memory by
+     * {@link ZipArchiveWriter#prepareEntry(java.nio.file.Path, java.nio.file.Path)},
+     * bigger files are compressed while they're written
+     */
+    static final int BUFFERED_ENTRY_SIZE = 1024 * 1024;
+    
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP64_ENTRIES_LIMIT = 0xFFFF;
+    
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int UTF8_FLAG = 0x0800;
+    
+    /**
+     * An entry ready to be written
+     */
+    static class Entry {
+        final Path path;
+        final byte [] name;
+        final int time;
+        final boolean directory;
+        
+        /**
+         * The data to write or null if the file has to be compressed by the
+         * writer
+         */
+        byte [] data;
+        int method;
+        long crc;
+        long size;
+        
+        Entry(Path path, String name, long lastModified, boolean directory) {
+            this.path = path;
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.time = toDosTime(lastModified);
+            this.directory = directory;
+        }
+        
+        String getName() {
+            return new String(name, StandardCharsets.UTF_8);
+        }
+    }
+    
+    private final FileChannel channel;
+    private final Path centralDirectoryFile;
+    private final FileChannel centralDirectory;
+    private final ByteBuffer centralBuffer = ByteBuffer.allocate(FileUtilities.BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long entries = 0;
+    
+    /**
+     * Creates a new archive, the file is truncated if it exists
+     * 
+     * @param file the archive
+     * @throws IOException if the file can't be created
+     */
+    ZipArchiveWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        
+        try {
+            centralDirectoryFile = Files.createTempFile(file.getFileName().toString(), ".cd");
+            centralDirectory = FileChannel.open(centralDirectoryFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Reads and compresses a file or directory, files bigger than
+     * {@link ZipArchiveWriter#BUFFERED_ENTRY_SIZE} are only described
+     * 
+     * @param root the directory the name of the entry is relative to
+     * @param path the file or directory
+     * @return the entry
+     * @throws IOException if the file can't be read
+     */
+    static Entry prepareEntry(Path root, Path path) throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (Path part : root.relativize(path)) {
+            if (name.length() > 0)
+                name.append('/');
+            
+            name.append(part);
+        }
+        
+        boolean directory = Files.isDirectory(path);
+        if (directory)
+            name.append('/');
+        
+        Entry entry = new Entry(path, name.toString(), Files.getLastModifiedTime(path).toMillis(), directory);
+        if (directory || Files.size(path) > BUFFERED_ENTRY_SIZE)
+            return entry;
+        
+        byte [] data = Files.readAllBytes(path);
+        
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        entry.crc = crc.getValue();
+        entry.size = data.length;
+        
+        // Data that doesn't get smaller is stored as it is
+        byte [] compressed = new byte[data.length];
+        int length = 0;
+        boolean finished;
+        
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            
+            while (!deflater.finished() && length < compressed.length)
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            
+            finished = deflater.finished();
+        } finally {
+            deflater.end();
+        }
+        
+        if (finished && length < data.length) {
+            entry.method = DEFLATED;
+            entry.data = length == compressed.length ? compressed : Arrays.copyOf(compressed, length);
+        } else {
+            entry.method = STORED;
+            entry.data = data;
+        }
+        
+        return entry;
+    }
+    
+    /**
+     * Writes an entry, if the entry has no data the file is compressed now
+     * 
+     * @param entry the entry
+     * @param listener notified with the bytes read while the file is
+     * compressed, it can be null
+     * @return the uncompressed size of the entry
+     * @throws IOException if the archive can't be written or the file can't
+     * be read
+     */
+    long write(Entry entry, ProgressListener listener) throws IOException {
+        long offset = channel.position();
+        
+        if (entry.directory || entry.data != null) {
+            long compressedSize = entry.directory ? 0 : entry.data.length;
+            
+            ByteBuffer header = localHeader(entry, compressedSize, false);
+            writeFully(header);
+            if (!entry.directory)
+                writeFully(ByteBuffer.wrap(entry.data));
+            
+            addCentralRecord(entry, compressedSize, offset);
+            return entry.size;
+        }
+        
+        // Sizes aren't known until the file is compressed, they're stored in
+        // the Zip64 field of the local header and filled in afterwards
+        entry.method = DEFLATED;
+        writeFully(localHeader(entry, 0, true));
+        
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte [] input = FileUtilities.acquireBuffer();
+        byte [] output = FileUtilities.acquireBuffer();
+        long size = 0;
+        long compressedSize = 0;
+        
+        try (InputStream inputStream = Files.newInputStream(entry.path)) {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(input)) != -1) {
+                crc.update(input, 0, bytesRead);
+                deflater.setInput(input, 0, bytesRead);
+                
+                while (!deflater.needsInput())
+                    compressedSize += writeFully(ByteBuffer.wrap(output, 0, deflater.deflate(output)));
+                
+                size += bytesRead;
+                if (listener != null)
+                    listener.progressChanged(size, -1);
+            }
+            
+            deflater.finish();
+            while (!deflater.finished())
+                compressedSize += writeFully(ByteBuffer.wrap(output, 0, deflater.deflate(output)));
+        } finally {
+            deflater.end();
+            FileUtilities.releaseBuffer(input);
+            FileUtilities.releaseBuffer(output);
+        }
+        
+        entry.crc = crc.getValue();
+        entry.size = size;
+        
+        ByteBuffer crcField = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        crcField.putInt(0, (int) entry.crc);
+        channel.write(crcField, offset + 14);
+        
+        ByteBuffer sizes = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        sizes.putLong(0, size).putLong(8, compressedSize);
+        channel.write(sizes, offset + 30 + entry.name.length + 4);
+        
+        addCentralRecord(entry, compressedSize, offset);
+        return size;
+    }
+    
+    private ByteBuffer localHeader(Entry entry, long compressedSize, boolean zip64) {
+        ByteBuffer header = ByteBuffer.allocate(30 + entry.name.length + (zip64 ? 20 : 0)).order(ByteOrder.LITTLE_ENDIAN);
+        
+        header.putInt(0x04034b50);
+        header.putShort((short) (zip64 ? 45 : 20));
+        header.putShort((short) UTF8_FLAG);
+        header.putShort((short) entry.method);
+        header.putInt(entry.time);
+        header.putInt((int) entry.crc);
+        header.putInt(zip64 ? -1 : (int) compressedSize);
+        header.putInt(zip64 ? -1 : (int) entry.size);
+        header.putShort((short) entry.name.length);
+        header.putShort((short) (zip64 ? 20 : 0));
+        header.put(entry.name);
+        
+        if (zip64) {
+            header.putShort((short) 1);
+            header.putShort((short) 16);
+            header.putLong(entry.size);
+            header.putLong(compressedSize);
+        }
+        
+        header.flip();
+        return header;
+    }
+    
+    private void addCentralRecord(Entry entry, long compressedSize, long offset) throws IOException {
+        boolean zip64Size = entry.size >= ZIP64_LIMIT;
+        boolean zip64CompressedSize = compressedSize >= ZIP64_LIMIT;
+        boolean zip64Offset = offset >= ZIP64_LIMIT;
+        
+        int extraLength = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+        if (extraLength > 0)
+            extraLength += 4;
+        
+        int length = 46 + entry.name.length + extraLength;
+        if (centralBuffer.remaining() < length)
+            flushCentralBuffer();
+        
+        ByteBuffer record = centralBuffer.remaining() >= length ? centralBuffer : ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        
+        record.putInt(0x02014b50);
+        record.putShort((short) 45);
+        record.putShort((short) (extraLength > 0 ? 45 : 20));
+        record.putShort((short) UTF8_FLAG);
+        record.putShort((short) entry.method);
+        record.putInt(entry.time);
+        record.putInt((int) entry.crc);
+        record.putInt(zip64CompressedSize ? -1 : (int) compressedSize);
+        record.putInt(zip64Size ? -1 : (int) entry.size);
+        record.putShort((short) entry.name.length);
+        record.putShort((short) extraLength);
+        record.putShort((short) 0);
+        record.putShort((short) 0);
+        record.putShort((short) 0);
+        record.putInt(entry.directory ? 0x10 : 0);
+        record.putInt(zip64Offset ? -1 : (int) offset);
+        record.put(entry.name);
+        
+        if (extraLength > 0) {
+            record.putShort((short) 1);
+            record.putShort((short) (extraLength - 4));
+            if (zip64Size)
+                record.putLong(entry.size);
+            if (zip64CompressedSize)
+                record.putLong(compressedSize);
+            if (zip64Offset)
+                record.putLong(offset);
+        }
+        
+        if (record != centralBuffer) {
+            record.flip();
+            while (record.hasRemaining())
+                centralDirectory.write(record);
+        }
+        
+        entries++;
+    }
+    
+    private void flushCentralBuffer() throws IOException {
+        centralBuffer.flip();
+        while (centralBuffer.hasRemaining())
+            centralDirectory.write(centralBuffer);
+        
+        centralBuffer.clear();
+    }
+    
+    /**
+     * Writes the central directory, no more entries can be written
+     * 
+     * @throws IOException if the archive can't be written
+     */
+    void finish() throws IOException {
+        flushCentralBuffer();
+        
+        long centralOffset = channel.position();
+        long centralSize = centralDirectory.size();
+        
+        long transferred = 0;
+        while (transferred < centralSize)
+            transferred += centralDirectory.transferTo(transferred, centralSize - transferred, channel);
+        
+        long end = centralOffset + centralSize;
+        boolean zip64 = entries >= ZIP64_ENTRIES_LIMIT || centralOffset >= ZIP64_LIMIT || centralSize >= ZIP64_LIMIT;
+        
+        ByteBuffer record = ByteBuffer.allocate(98).order(ByteOrder.LITTLE_ENDIAN);
+        if (zip64) {
+            record.putInt(0x06064b50);
+            record.putLong(44);
+            record.putShort((short) 45);
+            record.putShort((short) 45);
+            record.putInt(0);
+            record.putInt(0);
+            record.putLong(entries);
+            record.putLong(entries);
+            record.putLong(centralSize);
+            record.putLong(centralOffset);
+            
+            record.putInt(0x07064b50);
+            record.putInt(0);
+            record.putLong(end);
+            record.putInt(1);
+        }
+        
+        record.putInt(0x06054b50);
+        record.putShort((short) 0);
+        record.putShort((short) 0);
+        record.putShort((short) Math.min(entries, ZIP64_ENTRIES_LIMIT));
+        record.putShort((short) Math.min(entries, ZIP64_ENTRIES_LIMIT));
+        record.putInt((int) Math.min(centralSize, ZIP64_LIMIT));
+        record.putInt((int) Math.min(centralOffset, ZIP64_LIMIT));
+        record.putShort((short) 0);
+        
+        record.flip();
+        writeFully(record);
+        
+        channel.force(true);
+    }
+    
+    private int writeFully(ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        
+        return length;
+    }
+    
+    /**
+     * Closes the archive and removes the temporary central directory
+     * 
+     * @throws IOException if the archive can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            centralDirectory.close();
+            Files.deleteIfExists(centralDirectoryFile);
+        }
+    }
+    
+    private static int toDosTime(long time) {
+        LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        if (date.getYear() < 1980)
+            return (1 << 21) | (1 << 16);
+        
+        return (date.getYear() - 1980) << 25 | date.getMonthValue() << 21 | date.getDayOfMonth() << 16
+                | date.getHour() << 11 | date.getMinute() << 5 | date.getSecond() >> 1;
+    }
+}
@@ -0,0 +1,20 @@
+package utils;
+
+/**
+ * Interface for objects notified every time an entry of a zip archive is
+ * processed
+ * 
+ * @author cristopher
+ * @see FileUtilities#extractAllZippedFiles(java.io.File, java.io.File, utils.ProgressListener, utils.ZipEntryListener)
+ */
+public interface ZipEntryListener {
+    /**
+     * Called after an entry is processed, entries can be processed in
+     * parallel so it may be called from several threads at once
+     * 
+     * @param name the name of the entry in the archive
+     * @param processed the number of entries processed so far
+     * @param total the number of entries in the archive
+     */
+    public void entryProcessed(String name, int processed, int total);
+}